@@ -4,6 +4,7 @@ import android.app.Activity;
 import android.content.Context;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.util.SparseIntArray;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -57,6 +58,23 @@ public class MainActivity extends Activity implements StackView.OnDismissedListe
                 return new StackViewCardHolder<>(v);
             }
 
+            @Override
+            public void onDeclareCardHolders(SparseIntArray countsOut) {
+                // Have a few cards ready before the first fling
+                countsOut.put(0, 4);
+            }
+
+            @Override
+            public boolean canCreateCardHolderOffMainThread(int viewType) {
+                return true;
+            }
+
+            @Override
+            public boolean isCardOpaque(StackViewCardHolder<Integer> vh) {
+                // The cards are filled with opaque colors
+                return true;
+            }
+
             @Override
             public void onBindCardHolder(StackViewCardHolder<Integer> cardHolder) {
                 final int position = cardHolder.getPosition();
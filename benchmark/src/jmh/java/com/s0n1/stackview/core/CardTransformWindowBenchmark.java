@@ -0,0 +1,41 @@
+package com.s0n1.stackview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/* The transform update loop of StackView.updateStackTransforms(), scrolling through the stack */
+@State(Scope.Thread)
+public class CardTransformWindowBenchmark {
+
+    // The number of frames it takes to scroll from the min to the max scroll
+    private static final int FramesPerSweep = 600;
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int stackSize;
+
+    StackViewLayoutAlgorithm mLayoutAlgorithm;
+    CardTransformWindow mCardTransforms = new CardTransformWindow();
+    float mStackScroll;
+    float mScrollStep;
+
+    @Setup
+    public void setup() {
+        mLayoutAlgorithm = new StackViewLayoutAlgorithm(StackLayoutConfigurations.newConfiguration());
+        mLayoutAlgorithm.computeRects(1080, 1920, new IntRect(0, 64, 1080, 1920));
+        mLayoutAlgorithm.computeMinMaxScroll(stackSize);
+        mStackScroll = mLayoutAlgorithm.getMinScrollP();
+        mScrollStep = (mLayoutAlgorithm.getMaxScrollP() - mLayoutAlgorithm.getMinScrollP()) / FramesPerSweep;
+    }
+
+    @Benchmark
+    public boolean updateStackTransforms() {
+        mStackScroll += mScrollStep;
+        if (mStackScroll > mLayoutAlgorithm.getMaxScrollP()) {
+            mStackScroll = mLayoutAlgorithm.getMinScrollP();
+        }
+        return mCardTransforms.update(mLayoutAlgorithm, mStackScroll);
+    }
+}
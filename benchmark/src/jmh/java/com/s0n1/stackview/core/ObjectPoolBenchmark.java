@@ -0,0 +1,82 @@
+package com.s0n1.stackview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/* Cycles a holder through a pool filled with stackSize idle holders */
+@State(Scope.Thread)
+public class ObjectPoolBenchmark implements ObjectPool.ObjectPoolConsumer<ObjectPoolBenchmark.Holder> {
+
+    static class Holder {
+        int position = -1;
+    }
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int stackSize;
+
+    ObjectPool<Holder> mPool;
+    int mPosition;
+
+    @Setup
+    public void setup() {
+        mPool = new ObjectPool<>(this);
+        // Keep every holder to measure the lookup against the whole stack
+        mPool.setDefaultMaxPoolSize(Integer.MAX_VALUE);
+        Holder[] holders = new Holder[stackSize];
+        for (int i = 0; i < stackSize; i++) {
+            holders[i] = mPool.pickUpObjectFromPool(-1, i);
+        }
+        for (Holder holder : holders) {
+            mPool.returnObjectToPool(holder);
+        }
+        mPosition = 0;
+    }
+
+    @Benchmark
+    public Holder pickUpPreferredObject() {
+        Holder holder = mPool.pickUpObjectFromPool(mPosition, mPosition);
+        mPool.returnObjectToPool(holder);
+        // The holder bound to the next position is now the one returned the longest time ago
+        mPosition = (mPosition + 1) % stackSize;
+        return holder;
+    }
+
+    @Benchmark
+    public Holder pickUpAnyObject() {
+        Holder holder = mPool.pickUpObjectFromPool(-1, mPosition);
+        mPool.returnObjectToPool(holder);
+        return holder;
+    }
+
+    @Override
+    public Holder createObject(int type) {
+        return new Holder();
+    }
+
+    @Override
+    public int getObjectType(Holder holder) {
+        return ObjectPool.DefaultType;
+    }
+
+    @Override
+    public int getPreferredKey(Holder holder) {
+        return holder.position;
+    }
+
+    @Override
+    public void prepareObjectToEnterPool(Holder holder) {
+    }
+
+    @Override
+    public void prepareObjectToLeavePool(Holder holder, int position, boolean isNewObject) {
+        holder.position = position;
+    }
+
+    @Override
+    public void discardObject(Holder holder, boolean isNewObject) {
+    }
+
+}
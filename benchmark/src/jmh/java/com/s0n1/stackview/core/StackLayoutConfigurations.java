@@ -0,0 +1,15 @@
+package com.s0n1.stackview.core;
+
+/* The layout configuration of the sample app on a 420dpi phone */
+final class StackLayoutConfigurations {
+
+    static StackLayoutConfiguration newConfiguration() {
+        StackLayoutConfiguration config = new StackLayoutConfiguration();
+        config.taskStackTopPaddingPx = 0;
+        config.taskStackWidthPaddingPct = 0.04444f;
+        config.taskStackBottomInsetPx = 42;
+        config.taskViewTranslationZMinPx = 53;
+        config.taskViewTranslationZMaxPx = 210;
+        return config;
+    }
+}
@@ -0,0 +1,55 @@
+package com.s0n1.stackview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/* The layout algorithm hot paths, for a 1080x1920 stack */
+@State(Scope.Thread)
+public class StackViewLayoutAlgorithmBenchmark {
+
+    private static final int WindowWidth = 1080;
+    private static final int WindowHeight = 1920;
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int stackSize;
+
+    StackViewLayoutAlgorithm mLayoutAlgorithm;
+    CardTransform mTransform = new CardTransform();
+    int mPosition;
+    float mStackScroll;
+
+    @Setup
+    public void setup() {
+        mLayoutAlgorithm = new StackViewLayoutAlgorithm(StackLayoutConfigurations.newConfiguration());
+        mLayoutAlgorithm.computeRects(WindowWidth, WindowHeight, new IntRect(0, 64, WindowWidth, WindowHeight));
+        mLayoutAlgorithm.computeMinMaxScroll(stackSize);
+
+        // Look at the middle of the stack
+        mPosition = stackSize / 2;
+        mStackScroll = mLayoutAlgorithm.getStackScrollForTask(mPosition) - 0.5f;
+    }
+
+    @Benchmark
+    public float computeMinMaxScroll() {
+        mLayoutAlgorithm.computeMinMaxScroll(stackSize);
+        return mLayoutAlgorithm.getMaxScrollP();
+    }
+
+    @Benchmark
+    public CardTransform getStackTransform() {
+        return mLayoutAlgorithm.getStackTransform(mPosition, mStackScroll, mTransform, null);
+    }
+
+    @Benchmark
+    public float screenYToCurveProgress() {
+        return mLayoutAlgorithm.screenYToCurveProgress(WindowHeight / 3);
+    }
+
+    @Benchmark
+    public int curveProgressToScreenY() {
+        return mLayoutAlgorithm.curveProgressToScreenY(0.37f);
+    }
+}
@@ -0,0 +1,114 @@
+package com.s0n1.stackview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * The bookkeeping of one StackView.synchronizeStackViewsWithModel() frame, scrolling back and
+ * forth through the stack: the transform update, returning the cards which left the visible range
+ * and picking up the ones which entered it. Once warmed up, it must not allocate, which
+ * SyncFrameAllocationTest asserts; gc.alloc.rate.norm shows it as 0 B/op.
+ */
+@State(Scope.Thread)
+public class SyncFrameBenchmark implements ObjectPool.ObjectPoolConsumer<SyncFrameBenchmark.Holder>,
+        VisibleCardSync.Callbacks<SyncFrameBenchmark.Holder> {
+
+    // The number of frames it takes to scroll from the min to the max scroll
+    private static final int FramesPerSweep = 600;
+
+    static class Holder {
+        int position = -1;
+    }
+
+    @Param({"10", "1000", "1000000"})
+    public int stackSize;
+
+    StackViewLayoutAlgorithm mLayoutAlgorithm;
+    CardTransformWindow mCardTransforms = new CardTransformWindow();
+    CardTransform mTransform = new CardTransform();
+    ObjectPool<Holder> mPool;
+    IntObjectMap<Holder> mAttachedHolders = new IntObjectMap<>();
+    int[] mVisibleRange = new int[2];
+    float mStackScroll;
+    float mScrollStep;
+    int mChecksum;
+
+    @Setup
+    public void setup() {
+        mLayoutAlgorithm = new StackViewLayoutAlgorithm(StackLayoutConfigurations.newConfiguration());
+        mLayoutAlgorithm.computeRects(1080, 1920, new IntRect(0, 64, 1080, 1920));
+        mLayoutAlgorithm.computeMinMaxScroll(stackSize);
+        mPool = new ObjectPool<>(this);
+        mStackScroll = mLayoutAlgorithm.getMinScrollP();
+        mScrollStep = (mLayoutAlgorithm.getMaxScrollP() - mLayoutAlgorithm.getMinScrollP()) / FramesPerSweep;
+    }
+
+    @Benchmark
+    public int synchronizeFrame() {
+        mStackScroll += mScrollStep;
+        if (mStackScroll > mLayoutAlgorithm.getMaxScrollP() || mStackScroll < mLayoutAlgorithm.getMinScrollP()) {
+            mScrollStep = -mScrollStep;
+            mStackScroll += 2 * mScrollStep;
+        }
+
+        boolean isValidVisibleRange = mCardTransforms.update(mLayoutAlgorithm, mStackScroll);
+        int[] visibleRange = mVisibleRange;
+        mCardTransforms.getVisibleRange(visibleRange);
+
+        mChecksum = 0;
+        VisibleCardSync.synchronize(mAttachedHolders, visibleRange, isValidVisibleRange, this);
+        return mChecksum;
+    }
+
+    @Override
+    public void returnCard(Holder holder) {
+        mPool.returnObjectToPool(holder);
+    }
+
+    @Override
+    public Holder pickUpCard(int position) {
+        return mPool.pickUpObjectFromPool(position, position);
+    }
+
+    @Override
+    public void onCardVisible(int position, Holder holder, boolean pickedUp) {
+        CardTransform transform = mCardTransforms.get(position, mTransform);
+        mChecksum += holder.position + transform.translationY;
+    }
+
+    @Override
+    public Holder createObject(int type) {
+        return new Holder();
+    }
+
+    @Override
+    public int getObjectType(Holder holder) {
+        return ObjectPool.DefaultType;
+    }
+
+    @Override
+    public int getPreferredKey(Holder holder) {
+        return holder.position;
+    }
+
+    @Override
+    public void prepareObjectToEnterPool(Holder holder) {
+        int position = holder.position;
+        if (mAttachedHolders.get(position) == holder) {
+            mAttachedHolders.remove(position);
+        }
+    }
+
+    @Override
+    public void prepareObjectToLeavePool(Holder holder, int position, boolean isNewObject) {
+        mAttachedHolders.put(position, holder);
+        holder.position = position;
+    }
+
+    @Override
+    public void discardObject(Holder holder, boolean isNewObject) {
+    }
+}
@@ -0,0 +1,58 @@
+package com.s0n1.stackview.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Generates PrecomputedCurve, the curve tables for the default curve parameters, so that no curve
+ * is computed when the first stack is shown.
+ *
+ * Usage: CurveTableGenerator outputDir xScale logBase precisionSteps
+ */
+public class CurveTableGenerator {
+
+    public static void main(String[] args) throws IOException {
+        File outputDir = new File(args[0]);
+        float xScale = Float.parseFloat(args[1]);
+        float logBase = Float.parseFloat(args[2]);
+        int precisionSteps = Integer.parseInt(args[3]);
+
+        float[] xp = new float[precisionSteps + 1];
+        float[] px = new float[precisionSteps + 1];
+        CurveTableBuilder.compute(new LogStackingCurve(xScale, logBase), precisionSteps, xp, px);
+
+        File file = new File(outputDir, "com/s0n1/stackview/core/PrecomputedCurve.java");
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            throw new IOException("Cannot create " + file.getParent());
+        }
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))) {
+            out.println("// Generated by CurveTableGenerator, do not edit.");
+            out.println("package com.s0n1.stackview.core;");
+            out.println();
+            out.println("final class PrecomputedCurve {");
+            out.println("    static final float XScale = " + xScale + "f;");
+            out.println("    static final float LogBase = " + logBase + "f;");
+            out.println("    static final int PrecisionSteps = " + precisionSteps + ";");
+            out.println();
+            writeTable(out, "xp", xp);
+            out.println();
+            writeTable(out, "px", px);
+            out.println("}");
+        }
+    }
+
+    private static void writeTable(PrintWriter out, String name, float[] table) {
+        out.println("    static final float[] " + name + " = {");
+        for (int i = 0; i < table.length; i++) {
+            out.print(i % 6 == 0 ? "            " : " ");
+            out.print(table[i] + "f,");
+            if (i % 6 == 5 || i == table.length - 1) {
+                out.println();
+            }
+        }
+        out.println("    };");
+    }
+}
@@ -0,0 +1,38 @@
+package com.s0n1.stackview.core;
+
+/* The transform state for a card */
+public class CardTransform {
+    public int startDelay = 0;
+    public int translationY = 0;
+    public float translationZ = 0;
+    public float scale = 1f;
+    public float alpha = 1f;
+    public boolean visible = false;
+    public IntRect rect = new IntRect();
+    public float p = 0f;
+
+    public CardTransform() {
+        // Do nothing
+    }
+
+    /**
+     * Resets the current transform
+     */
+    public void reset() {
+        startDelay = 0;
+        translationY = 0;
+        translationZ = 0;
+        scale = 1f;
+        alpha = 1f;
+        visible = false;
+        rect.setEmpty();
+        p = 0f;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskViewTransform delay: " + startDelay + " y: " + translationY + " z: " + translationZ +
+                " scale: " + scale + " alpha: " + alpha + " visible: " + visible + " rect: " + rect +
+                " p: " + p;
+    }
+}
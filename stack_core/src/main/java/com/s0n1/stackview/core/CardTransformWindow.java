@@ -0,0 +1,142 @@
+package com.s0n1.stackview.core;
+
+/**
+ * The transforms of the visible cards only. The state is kept in parallel primitive arrays indexed
+ * from the back-most visible card, so the memory is bounded by the visible window and not by the
+ * number of cards in the stack.
+ */
+public class CardTransformWindow {
+
+    // Spare slots kept around the visible window so that it does not reallocate while scrolling
+    private static final int WindowMargin = 4;
+
+    // The visible range, {frontMostVisibleIndex, backMostVisibleIndex}
+    private final int[] mVisibleRange = new int[]{-1, -1};
+
+    private int[] mTranslationY;
+    private float[] mTranslationZ;
+    private float[] mScale;
+    private float[] mAlpha;
+    private float[] mP;
+    private int[] mRectLeft;
+    private int[] mRectTop;
+    private int[] mRectRight;
+    private int[] mRectBottom;
+
+    // Scratch transforms used while computing the window
+    private CardTransform mTmpTransform = new CardTransform();
+    private CardTransform mTmpPrevTransform = new CardTransform();
+
+    public CardTransformWindow() {
+        allocate(WindowMargin);
+    }
+
+    /**
+     * Recomputes the transforms of the visible cards for the given stack scroll.
+     *
+     * @return whether any card is visible
+     */
+    public boolean update(StackViewLayoutAlgorithm layoutAlgorithm, float stackScroll) {
+        if (!layoutAlgorithm.computeVisibleRange(stackScroll, mVisibleRange)) {
+            return false;
+        }
+        int front = mVisibleRange[0];
+        int back = mVisibleRange[1];
+        ensureCapacity(front - back + 1);
+
+        CardTransform transform = mTmpTransform;
+        CardTransform prevTransform = null;
+        for (int i = front; i >= back; i--) {
+            layoutAlgorithm.getStackTransform(i, stackScroll, transform, prevTransform);
+            int slot = i - back;
+            mTranslationY[slot] = transform.translationY;
+            mTranslationZ[slot] = transform.translationZ;
+            mScale[slot] = transform.scale;
+            mAlpha[slot] = transform.alpha;
+            mP[slot] = transform.p;
+            mRectLeft[slot] = transform.rect.left;
+            mRectTop[slot] = transform.rect.top;
+            mRectRight[slot] = transform.rect.right;
+            mRectBottom[slot] = transform.rect.bottom;
+
+            // Only the progress of the previous transform is used, so just swap the scratch ones
+            prevTransform = transform;
+            transform = (transform == mTmpTransform) ? mTmpPrevTransform : mTmpTransform;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the front-most visible card, or -1 if there is none.
+     */
+    public int getFrontMostVisibleIndex() {
+        return mVisibleRange[0];
+    }
+
+    /**
+     * Returns the index of the back-most visible card, or -1 if there is none.
+     */
+    public int getBackMostVisibleIndex() {
+        return mVisibleRange[1];
+    }
+
+    /**
+     * Copies the visible range into rangeOut as {frontMostVisibleIndex, backMostVisibleIndex}.
+     */
+    public void getVisibleRange(int[] rangeOut) {
+        rangeOut[0] = mVisibleRange[0];
+        rangeOut[1] = mVisibleRange[1];
+    }
+
+    /**
+     * Returns whether the card at the given index is in the visible window.
+     */
+    public boolean contains(int index) {
+        return mVisibleRange[1] >= 0 && mVisibleRange[1] <= index && index <= mVisibleRange[0];
+    }
+
+    /**
+     * Returns the progress of a visible card relative to the stack scroll.
+     */
+    public float getP(int index) {
+        return mP[index - mVisibleRange[1]];
+    }
+
+    /**
+     * Copies the transform of a visible card into transformOut.
+     */
+    public <T extends CardTransform> T get(int index, T transformOut) {
+        int slot = index - mVisibleRange[1];
+        transformOut.startDelay = 0;
+        transformOut.translationY = mTranslationY[slot];
+        transformOut.translationZ = mTranslationZ[slot];
+        transformOut.scale = mScale[slot];
+        transformOut.alpha = mAlpha[slot];
+        transformOut.visible = true;
+        transformOut.rect.set(mRectLeft[slot], mRectTop[slot], mRectRight[slot], mRectBottom[slot]);
+        transformOut.p = mP[slot];
+        return transformOut;
+    }
+
+    /**
+     * Grows the arrays to fit the visible window, and trims them once the window got much smaller.
+     */
+    private void ensureCapacity(int count) {
+        int capacity = mP.length;
+        if (capacity < count || capacity > count + 4 * WindowMargin) {
+            allocate(count + WindowMargin);
+        }
+    }
+
+    private void allocate(int capacity) {
+        mTranslationY = new int[capacity];
+        mTranslationZ = new float[capacity];
+        mScale = new float[capacity];
+        mAlpha = new float[capacity];
+        mP = new float[capacity];
+        mRectLeft = new int[capacity];
+        mRectTop = new int[capacity];
+        mRectRight = new int[capacity];
+        mRectBottom = new int[capacity];
+    }
+}
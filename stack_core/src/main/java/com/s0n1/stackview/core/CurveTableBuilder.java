@@ -0,0 +1,84 @@
+package com.s0n1.stackview.core;
+
+/**
+ * Builds the tables of a stacking curve: px maps x to the progress along the curve, and xp is its
+ * inverse. The tables are cached by CurveTables, and the ones of the default curve are generated at
+ * build time into PrecomputedCurve, see CurveTableGenerator.
+ */
+final class CurveTableBuilder {
+
+    private CurveTableBuilder() {
+    }
+
+    /**
+     * Computes the tables of the curve into xp and px, which must both have precisionSteps + 1
+     * elements.
+     */
+    static void compute(StackingCurve curve, int precisionSteps, float[] xp, float[] px) {
+        // Approximate f(x)
+        float[] fx = new float[precisionSteps + 1];
+        float step = 1f / precisionSteps;
+        float x = 0;
+
+        for (int xStep = 0; xStep <= precisionSteps; xStep++) {
+
+            //fx[xStep]：每个阶段的y值  （0->1）
+
+            fx[xStep] = curve.f(x);
+            x += step;
+        }
+
+        // Calculate the arc length for x:1->0
+        float pLength = 0;
+        float[] dx = new float[precisionSteps + 1];
+        dx[0] = 0;
+
+        //dx[xStep]：每个阶段差值间的距离，即直线弧度
+        //pLength: 总弧度 （0->1.783）
+
+        for (int xStep = 1; xStep < precisionSteps; xStep++) {
+            dx[xStep] = (float) Math.sqrt(Math.pow(fx[xStep] - fx[xStep - 1], 2) + Math.pow(step, 2));
+            pLength += dx[xStep];
+        }
+
+        // Approximate p(x), a function of cumulative progress with x, normalized to 0..1
+        float p = 0;
+        px[0] = 0f;
+        px[precisionSteps] = 1f;
+
+        for (int xStep = 1; xStep <= precisionSteps; xStep++) {
+
+            //px[xStep]: 当前阶段总弧度，所占总体的百分比() （0->1）
+
+            p += Math.abs(dx[xStep] / pLength);
+            px[xStep] = p;
+        }
+        // Given p(x), calculate the inverse function x(p). This assumes that x(p) is also a valid
+        // function.
+
+        int xStep = 0;
+        p = 0;
+        xp[0] = 0f;
+        xp[precisionSteps] = 1f;
+
+        //xp[precisionSteps] 这个是每段x的平均渐进累加值，与弧度渐进值的靠近比率。也就是说会越来越快  （0->1）
+
+        for (int pStep = 0; pStep < precisionSteps; pStep++) {
+            // Walk forward in px and find the x where px <= p && p < px+1
+            while (xStep < precisionSteps) {
+                if (px[xStep] > p) break;
+                xStep++;
+            }
+            // Now, px[xStep-1] <= p < px[xStep]
+            if (xStep == 0) {
+                xp[pStep] = 0;
+            } else {
+                // Find x such that proportionally, x is correct
+                float fraction = (p - px[xStep - 1]) / (px[xStep] - px[xStep - 1]);
+                x = (xStep - 1 + fraction) * step;
+                xp[pStep] = x;
+            }
+            p += step;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.s0n1.stackview.core;
+
+import java.util.HashMap;
+
+/**
+ * The forward and inverse tables of a stacking curve. Tables are computed once per curve key and
+ * precision, and shared by all the layouts of the process.
+ */
+public final class CurveTables {
+
+    // The tables of all the curves in use, keyed by curve key and precision
+    private static final HashMap<String, CurveTables> sCache = new HashMap<>();
+
+    static {
+        // The default curve is generated at build time
+        StackingCurve defaultCurve = new LogStackingCurve(PrecomputedCurve.XScale, PrecomputedCurve.LogBase);
+        sCache.put(getCacheKey(defaultCurve, PrecomputedCurve.PrecisionSteps),
+                new CurveTables(PrecomputedCurve.xp, PrecomputedCurve.px));
+    }
+
+    //xp[PrecisionSteps] 这个是每段x的平均渐进累加值，与弧度渐进值的靠近比率。也就是说会越来越快
+    private final float[] xp;
+
+    //当前阶段总弧度，所占总体的百分比() （0->1）
+    private final float[] px;
+
+    private final int mPrecisionSteps;
+
+    private CurveTables(float[] xp, float[] px) {
+        this.xp = xp;
+        this.px = px;
+        mPrecisionSteps = xp.length - 1;
+    }
+
+    /**
+     * Returns the shared tables of a curve, computing them on first use.
+     */
+    public static CurveTables get(StackingCurve curve, int precisionSteps) {
+        if (precisionSteps < 1) {
+            throw new IllegalArgumentException("precisionSteps must be positive");
+        }
+        String key = getCacheKey(curve, precisionSteps);
+        synchronized (sCache) {
+            CurveTables tables = sCache.get(key);
+            if (tables == null) {
+                float[] xp = new float[precisionSteps + 1];
+                float[] px = new float[precisionSteps + 1];
+                CurveTableBuilder.compute(curve, precisionSteps, xp, px);
+                tables = new CurveTables(xp, px);
+                sCache.put(key, tables);
+            }
+            return tables;
+        }
+    }
+
+    private static String getCacheKey(StackingCurve curve, int precisionSteps) {
+        return curve.getKey() + "@" + precisionSteps;
+    }
+
+    /**
+     * Converts from the progress along the curve (0..1) to x (0..1).
+     */
+    public float progressToX(float p) {
+        return interpolate(xp, p);
+    }
+
+    /**
+     * Converts from x (0..1) to the progress along the curve (0..1).
+     */
+    public float xToProgress(float x) {
+        return interpolate(px, x);
+    }
+
+    /**
+     * Linearly interpolates the table at v, which must be within 0..1.
+     */
+    private float interpolate(float[] table, float v) {
+        float index = v * mPrecisionSteps;
+        if (!(index > 0)) {
+            // Also maps NaN, e.g. before the stack rects are computed, to the first entry
+            return table[0];
+        }
+        // The last step interpolates up to the last entry for v = 1
+        int floorIndex = Math.min((int) index, mPrecisionSteps - 1);
+        float fraction = index - floorIndex;
+        return table[floorIndex] + (table[floorIndex + 1] - table[floorIndex]) * fraction;
+    }
+}
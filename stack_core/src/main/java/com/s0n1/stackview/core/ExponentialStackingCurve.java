@@ -0,0 +1,30 @@
+package com.s0n1.stackview.core;
+
+/**
+ * The curve (e^(k * x) - 1) / (e^k - 1). It is flat at the bottom and steep at the top, so the cards
+ * at the front are packed together.
+ */
+public class ExponentialStackingCurve implements StackingCurve {
+
+    private final float mK;
+
+    /**
+     * @param k the steepness of the curve, it must be positive
+     */
+    public ExponentialStackingCurve(float k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        mK = k;
+    }
+
+    @Override
+    public float f(float x) {
+        return (float) (Math.expm1(mK * x) / Math.expm1(mK));
+    }
+
+    @Override
+    public String getKey() {
+        return "exp:" + mK;
+    }
+}
@@ -0,0 +1,136 @@
+package com.s0n1.stackview.core;
+
+import java.util.Arrays;
+
+/* An open addressing map from int to int, which does not box and only allocates when growing */
+public final class IntIntMap {
+
+    private int[] mKeys;
+    private int[] mValues;
+    private boolean[] mUsed;
+    private int mMask;
+    private int mSize;
+
+    public IntIntMap() {
+        this(8);
+    }
+
+    public IntIntMap(int initialCapacity) {
+        // Keep the load factor at most 1/2 so the probe sequences stay short
+        int tableSize = 8;
+        while (tableSize < initialCapacity * 2) {
+            tableSize <<= 1;
+        }
+        allocate(tableSize);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Returns the value of the key, or valueIfKeyNotFound
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        int index = indexOf(key);
+        return index >= 0 ? mValues[index] : valueIfKeyNotFound;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        int index = hash(key) & mMask;
+        while (mUsed[index]) {
+            if (mKeys[index] == key) {
+                mValues[index] = value;
+                return;
+            }
+            index = (index + 1) & mMask;
+        }
+        mUsed[index] = true;
+        mKeys[index] = key;
+        mValues[index] = value;
+        mSize++;
+        if (mSize * 2 > mKeys.length) {
+            rehash(mKeys.length << 1);
+        }
+    }
+
+    /**
+     * Removes the key, returning its value or valueIfKeyNotFound
+     */
+    public int remove(int key, int valueIfKeyNotFound) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return valueIfKeyNotFound;
+        }
+        int value = mValues[index];
+        mUsed[index] = false;
+        mSize--;
+
+        // Shift back the following entries of the probe sequence into the hole
+        int hole = index;
+        int next = index;
+        while (true) {
+            next = (next + 1) & mMask;
+            if (!mUsed[next]) {
+                break;
+            }
+            int ideal = hash(mKeys[next]) & mMask;
+            boolean reachableFromHole = hole <= next ? (hole < ideal && ideal <= next)
+                    : (hole < ideal || ideal <= next);
+            if (reachableFromHole) {
+                continue;
+            }
+            mKeys[hole] = mKeys[next];
+            mValues[hole] = mValues[next];
+            mUsed[hole] = true;
+            mUsed[next] = false;
+            hole = next;
+        }
+        return value;
+    }
+
+    public void clear() {
+        Arrays.fill(mUsed, false);
+        mSize = 0;
+    }
+
+    private int indexOf(int key) {
+        int index = hash(key) & mMask;
+        while (mUsed[index]) {
+            if (mKeys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mMask;
+        }
+        return -1;
+    }
+
+    private void rehash(int tableSize) {
+        int[] keys = mKeys;
+        int[] values = mValues;
+        boolean[] used = mUsed;
+        allocate(tableSize);
+        mSize = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                put(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        mKeys = new int[tableSize];
+        mValues = new int[tableSize];
+        mUsed = new boolean[tableSize];
+        mMask = tableSize - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,138 @@
+package com.s0n1.stackview.core;
+
+/*
+ * A map from int to objects, such as the cards attached at each position. The entries are kept
+ * in dense arrays indexed through an IntIntMap, so get/put/remove are O(1) and iterating with
+ * keyAt()/valueAt() does not allocate. Removing swaps the last entry into the hole, so iterate
+ * backwards when removing entries on the way.
+ */
+public final class IntObjectMap<V> {
+
+    private IntIntMap mIndices;
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    public IntObjectMap() {
+        this(8);
+    }
+
+    public IntObjectMap(int initialCapacity) {
+        initialCapacity = Math.max(1, initialCapacity);
+        mIndices = new IntIntMap(initialCapacity);
+        mKeys = new int[initialCapacity];
+        mValues = new Object[initialCapacity];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index) {
+        return (V) mValues[index];
+    }
+
+    /**
+     * Returns the value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = mIndices.get(key, -1);
+        return index >= 0 ? (V) mValues[index] : null;
+    }
+
+    public void put(int key, V value) {
+        int index = mIndices.get(key, -1);
+        if (index >= 0) {
+            mValues[index] = value;
+            return;
+        }
+        if (mSize == mKeys.length) {
+            int capacity = mSize * 2;
+            int[] keys = new int[capacity];
+            Object[] values = new Object[capacity];
+            System.arraycopy(mKeys, 0, keys, 0, mSize);
+            System.arraycopy(mValues, 0, values, 0, mSize);
+            mKeys = keys;
+            mValues = values;
+        }
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        mIndices.put(key, mSize);
+        mSize++;
+    }
+
+    /**
+     * Removes the key, returning its value or null
+     */
+    public V remove(int key) {
+        int index = mIndices.get(key, -1);
+        return index >= 0 ? removeAt(index) : null;
+    }
+
+    /**
+     * Removes the entry at the given index, the last entry takes its index
+     */
+    @SuppressWarnings("unchecked")
+    public V removeAt(int index) {
+        V value = (V) mValues[index];
+        mIndices.remove(mKeys[index], -1);
+        int last = --mSize;
+        if (index != last) {
+            mKeys[index] = mKeys[last];
+            mValues[index] = mValues[last];
+            mIndices.put(mKeys[index], index);
+        }
+        mValues[last] = null;
+        return value;
+    }
+
+    /**
+     * Adds offset to the keys greater than or equal to fromKey, e.g. to shift the positions after
+     * an item was inserted or removed. The shifted keys must not collide with the other ones.
+     */
+    public void offsetKeys(int fromKey, int offset) {
+        mIndices.clear();
+        for (int i = 0; i < mSize; i++) {
+            if (mKeys[i] >= fromKey) {
+                mKeys[i] += offset;
+            }
+            mIndices.put(mKeys[i], i);
+        }
+    }
+
+    /**
+     * Moves the entry of fromKey, if any, to toKey and shifts the keys in between by one towards
+     * fromKey, e.g. to follow an item moved in a list
+     */
+    public void moveKey(int fromKey, int toKey) {
+        if (fromKey == toKey) {
+            return;
+        }
+        int low = Math.min(fromKey, toKey);
+        int high = Math.max(fromKey, toKey);
+        int shift = fromKey < toKey ? -1 : 1;
+        mIndices.clear();
+        for (int i = 0; i < mSize; i++) {
+            if (mKeys[i] == fromKey) {
+                mKeys[i] = toKey;
+            } else if (low <= mKeys[i] && mKeys[i] <= high) {
+                mKeys[i] += shift;
+            }
+            mIndices.put(mKeys[i], i);
+        }
+    }
+
+    public void clear() {
+        mIndices.clear();
+        for (int i = 0; i < mSize; i++) {
+            mValues[i] = null;
+        }
+        mSize = 0;
+    }
+}
@@ -0,0 +1,108 @@
+package com.s0n1.stackview.core;
+
+/* An integer rect with the same semantics as android.graphics.Rect, so the layout runs on any JVM */
+public final class IntRect {
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    public IntRect() {
+        // Do nothing
+    }
+
+    public IntRect(int left, int top, int right, int bottom) {
+        set(left, top, right, bottom);
+    }
+
+    public IntRect(IntRect r) {
+        set(r);
+    }
+
+    public void set(int left, int top, int right, int bottom) {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public void set(IntRect src) {
+        set(src.left, src.top, src.right, src.bottom);
+    }
+
+    public void setEmpty() {
+        left = right = top = bottom = 0;
+    }
+
+    public boolean isEmpty() {
+        return left >= right || top >= bottom;
+    }
+
+    public int width() {
+        return right - left;
+    }
+
+    public int height() {
+        return bottom - top;
+    }
+
+    public int centerX() {
+        return (left + right) >> 1;
+    }
+
+    public int centerY() {
+        return (top + bottom) >> 1;
+    }
+
+    public void offset(int dx, int dy) {
+        left += dx;
+        top += dy;
+        right += dx;
+        bottom += dy;
+    }
+
+    public void inset(int dx, int dy) {
+        left += dx;
+        top += dy;
+        right -= dx;
+        bottom -= dy;
+    }
+
+    /**
+     * Scales this rect about its centroid
+     */
+    public void scaleAboutCenter(float scale) {
+        if (scale != 1.0f) {
+            int cx = centerX();
+            int cy = centerY();
+            offset(-cx, -cy);
+            left = (int) (left * scale + 0.5f);
+            top = (int) (top * scale + 0.5f);
+            right = (int) (right * scale + 0.5f);
+            bottom = (int) (bottom * scale + 0.5f);
+            offset(cx, cy);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntRect)) return false;
+        IntRect r = (IntRect) o;
+        return left == r.left && top == r.top && right == r.right && bottom == r.bottom;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = left;
+        result = 31 * result + top;
+        result = 31 * result + right;
+        result = 31 * result + bottom;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "IntRect(" + left + ", " + top + " - " + right + ", " + bottom + ")";
+    }
+}
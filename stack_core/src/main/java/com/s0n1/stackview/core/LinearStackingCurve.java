@@ -0,0 +1,17 @@
+package com.s0n1.stackview.core;
+
+/**
+ * The straight curve f(x) = x, the cards are evenly spaced.
+ */
+public class LinearStackingCurve implements StackingCurve {
+
+    @Override
+    public float f(float x) {
+        return x;
+    }
+
+    @Override
+    public String getKey() {
+        return "linear";
+    }
+}
@@ -0,0 +1,320 @@
+package com.s0n1.stackview.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*
+ * Computes the update script between two lists of items with stable ids. Since the ids are unique,
+ * the longest common subsequence of a Myers diff is the longest increasing subsequence of the old
+ * positions of the items kept. The items outside of it are moved, so the script has the fewest
+ * removes, inserts and moves. The whole script is computed in O(n log n). Meant to run off the
+ * main thread.
+ */
+public final class ListDiff {
+
+    public interface ContentCallback {
+        /**
+         * Returns whether the items with the same id at the given positions show the same content
+         */
+        boolean areContentsTheSame(int oldPosition, int newPosition);
+    }
+
+    public static final int OpRemove = 0;
+    public static final int OpInsert = 1;
+    public static final int OpMove = 2;
+    public static final int OpChange = 3;
+
+    /* The script, its positions apply to the list as left by the previous operations */
+    public static final class Result {
+        final int[] mOldToNew;
+        final int[] mNewToOld;
+        final boolean[] mChanged;
+
+        int[] mOpTypes = new int[8];
+        int[] mOpPositions = new int[8];
+        // The item count of removes, inserts and changes, the target position of moves
+        int[] mOpArgs = new int[8];
+        int mOpCount;
+
+        Result(int oldSize, int newSize) {
+            mOldToNew = new int[oldSize];
+            mNewToOld = new int[newSize];
+            mChanged = new boolean[newSize];
+        }
+
+        public int getOldListSize() {
+            return mOldToNew.length;
+        }
+
+        public int getNewListSize() {
+            return mNewToOld.length;
+        }
+
+        /**
+         * Returns the new position of the item at the old position, or -1 if it was removed
+         */
+        public int getNewPosition(int oldPosition) {
+            return mOldToNew[oldPosition];
+        }
+
+        /**
+         * Returns the old position of the item at the new position, or -1 if it was inserted
+         */
+        public int getOldPosition(int newPosition) {
+            return mNewToOld[newPosition];
+        }
+
+        /**
+         * Returns whether the content of the item kept at the new position changed
+         */
+        public boolean isContentChanged(int newPosition) {
+            return mChanged[newPosition];
+        }
+
+        public int getOperationCount() {
+            return mOpCount;
+        }
+
+        /**
+         * Returns OpRemove, OpInsert, OpMove or OpChange
+         */
+        public int getOperationType(int index) {
+            return mOpTypes[index];
+        }
+
+        public int getOperationPosition(int index) {
+            return mOpPositions[index];
+        }
+
+        /**
+         * Returns the item count of a remove, insert or change
+         */
+        public int getOperationItemCount(int index) {
+            return mOpTypes[index] == OpMove ? 1 : mOpArgs[index];
+        }
+
+        /**
+         * Returns the position a move puts the item at
+         */
+        public int getOperationToPosition(int index) {
+            return mOpArgs[index];
+        }
+
+        void addOperation(int type, int position, int arg) {
+            // Merge the runs of removes, inserts and changes
+            int last = mOpCount - 1;
+            if (last >= 0 && mOpTypes[last] == type && type != OpMove) {
+                if (type == OpRemove && position + 1 == mOpPositions[last]) {
+                    mOpPositions[last] = position;
+                    mOpArgs[last]++;
+                    return;
+                }
+                if (type != OpRemove && position == mOpPositions[last] + mOpArgs[last]) {
+                    mOpArgs[last]++;
+                    return;
+                }
+            }
+            if (mOpCount == mOpTypes.length) {
+                mOpTypes = Arrays.copyOf(mOpTypes, mOpCount * 2);
+                mOpPositions = Arrays.copyOf(mOpPositions, mOpCount * 2);
+                mOpArgs = Arrays.copyOf(mOpArgs, mOpCount * 2);
+            }
+            mOpTypes[mOpCount] = type;
+            mOpPositions[mOpCount] = position;
+            mOpArgs[mOpCount] = arg;
+            mOpCount++;
+        }
+    }
+
+    private ListDiff() {
+    }
+
+    /**
+     * Computes the script turning the old list into the new one
+     *
+     * @throws IllegalArgumentException if a list has duplicate ids
+     */
+    public static Result compute(long[] oldIds, long[] newIds, ContentCallback callback) {
+        int oldSize = oldIds.length;
+        int newSize = newIds.length;
+        Result result = new Result(oldSize, newSize);
+
+        // Match the items by id
+        HashMap<Long, Integer> oldPositions = new HashMap<>(oldSize * 2);
+        for (int i = 0; i < oldSize; i++) {
+            if (oldPositions.put(oldIds[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate id in the old list: " + oldIds[i]);
+            }
+        }
+        Arrays.fill(result.mOldToNew, -1);
+        HashMap<Long, Integer> newPositions = new HashMap<>(newSize * 2);
+        for (int j = 0; j < newSize; j++) {
+            if (newPositions.put(newIds[j], j) != null) {
+                throw new IllegalArgumentException("Duplicate id in the new list: " + newIds[j]);
+            }
+            Integer oldPosition = oldPositions.get(newIds[j]);
+            result.mNewToOld[j] = oldPosition != null ? oldPosition : -1;
+            if (oldPosition != null) {
+                result.mOldToNew[oldPosition] = j;
+                result.mChanged[j] = !callback.areContentsTheSame(oldPosition, j);
+            }
+        }
+
+        // The matched items in the new order, as old positions
+        int matchedCount = 0;
+        int[] matched = new int[newSize];
+        for (int j = 0; j < newSize; j++) {
+            if (result.mNewToOld[j] >= 0) {
+                matched[matchedCount++] = result.mNewToOld[j];
+            }
+        }
+        boolean[] kept = new boolean[oldSize];
+        markLongestIncreasingSubsequence(matched, matchedCount, kept);
+
+        // Remove the items which are gone, from the end so the positions stay valid
+        for (int i = oldSize - 1; i >= 0; i--) {
+            if (result.mOldToNew[i] < 0) {
+                result.addOperation(OpRemove, i, 1);
+            }
+        }
+
+        // Move each item outside of the subsequence right after the item preceding it in the new
+        // order, in the new order, which leaves the matched items in the new order. Rather than
+        // searching the list, number the places an item can take in the list order: the kept
+        // items split the list into gaps, each holding the places the moved items go to, in the
+        // new order, then the places they come from, in the old order, then the kept item closing
+        // the gap. A position is then the count of the places taken before, kept in a Fenwick tree
+        int keptCount = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (kept[i]) {
+                keptCount++;
+            }
+        }
+        // The gap of each item first, then its place
+        int[] toPlaces = new int[oldSize];
+        int[] fromPlaces = new int[oldSize];
+        int[] gapStarts = new int[keptCount + 2];
+        int gap = 0;
+        for (int t = 0; t < matchedCount; t++) {
+            int item = matched[t];
+            if (kept[item]) {
+                gap++;
+            } else {
+                toPlaces[item] = gap;
+                gapStarts[gap + 1]++;
+            }
+        }
+        gap = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (result.mOldToNew[i] >= 0) {
+                fromPlaces[i] = gap;
+                gapStarts[gap + 1]++;
+                if (kept[i]) {
+                    gap++;
+                }
+            }
+        }
+        for (int g = 1; g < gapStarts.length; g++) {
+            gapStarts[g] += gapStarts[g - 1];
+        }
+        int placeCount = gapStarts[keptCount + 1];
+        for (int t = 0; t < matchedCount; t++) {
+            int item = matched[t];
+            if (!kept[item]) {
+                toPlaces[item] = gapStarts[toPlaces[item]]++;
+            }
+        }
+        int[] takenPlaces = new int[placeCount + 1];
+        for (int i = 0; i < oldSize; i++) {
+            if (result.mOldToNew[i] >= 0) {
+                fromPlaces[i] = gapStarts[fromPlaces[i]]++;
+                takenPlaces[fromPlaces[i] + 1] = 1;
+            }
+        }
+        initFenwickTree(takenPlaces);
+
+        for (int t = 0; t < matchedCount; t++) {
+            int item = matched[t];
+            if (!kept[item]) {
+                int from = countTakenPlacesBefore(takenPlaces, fromPlaces[item]);
+                addTakenPlace(takenPlaces, fromPlaces[item], -1);
+                int to = countTakenPlacesBefore(takenPlaces, toPlaces[item]);
+                addTakenPlace(takenPlaces, toPlaces[item], 1);
+                if (from != to) {
+                    result.addOperation(OpMove, from, to);
+                }
+            }
+        }
+
+        // Insert the new items in the new order, at their final positions
+        for (int j = 0; j < newSize; j++) {
+            if (result.mNewToOld[j] < 0) {
+                result.addOperation(OpInsert, j, 1);
+            }
+        }
+
+        // The changes apply to the final list
+        for (int j = 0; j < newSize; j++) {
+            if (result.mChanged[j]) {
+                result.addOperation(OpChange, j, 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Marks the values of one of the longest increasing subsequences of the given values
+     */
+    private static void markLongestIncreasingSubsequence(int[] values, int count, boolean[] marks) {
+        // tails[k] is the index of the smallest tail of the increasing subsequences of length k + 1
+        int[] tails = new int[count];
+        int[] predecessors = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            marks[values[i]] = true;
+        }
+    }
+
+    /**
+     * Turns the counts at the indices 1 to length - 1 into a Fenwick tree, in O(n)
+     */
+    private static void initFenwickTree(int[] tree) {
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static void addTakenPlace(int[] tree, int place, int delta) {
+        for (int i = place + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private static int countTakenPlacesBefore(int[] tree, int place) {
+        int count = 0;
+        for (int i = place; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+}
@@ -0,0 +1,37 @@
+package com.s0n1.stackview.core;
+
+/**
+ * The curve of the Lollipop recents, 1 - logBase^(1 - xScale * x) / logBase. It is steep at the
+ * bottom and flat at the top, so the cards at the back are packed together.
+ */
+public class LogStackingCurve implements StackingCurve {
+
+    private final float mXScale;
+    private final float mLogBase;
+
+    /**
+     * @param xScale  the large the xScale, the longer the flat area of the curve
+     * @param logBase the large the logBase, the steeper the curve
+     */
+    public LogStackingCurve(float xScale, float logBase) {
+        mXScale = xScale;
+        mLogBase = logBase;
+    }
+
+    @Override
+    public float f(float x) {
+        return 1f - (float) (Math.pow(mLogBase, reverse(x))) / (mLogBase);
+    }
+
+    /**
+     * Reverses and scales out x.
+     */
+    private float reverse(float x) {
+        return (-x * mXScale) + 1;
+    }
+
+    @Override
+    public String getKey() {
+        return "log:" + mXScale + ":" + mLogBase;
+    }
+}
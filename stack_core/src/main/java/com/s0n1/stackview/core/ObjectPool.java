@@ -0,0 +1,382 @@
+package com.s0n1.stackview.core;
+
+/* A bounded pool of recycled objects, such as the card holders of a stack, kept apart by object type */
+public class ObjectPool<V> {
+
+    public interface ObjectPoolConsumer<V> {
+        V createObject(int type);
+
+        int getObjectType(V v);
+
+        /**
+         * Returns the key the object is preferably picked up again with once returned, such as the
+         * position it was bound to, or a negative value for none.
+         */
+        int getPreferredKey(V v);
+
+        void prepareObjectToEnterPool(V v);
+
+        void prepareObjectToLeavePool(V v, int prepareData, boolean isNewObject);
+
+        /**
+         * Called when an idle object is evicted from the pool, or when the pool of the object type
+         * is full. A used object has been through prepareObjectToEnterPool() before.
+         */
+        void discardObject(V v, boolean isNewObject);
+    }
+
+    /* Selects the idle objects to evict, see evictObjects() */
+    public interface ObjectFilter<V> {
+        boolean accept(V v);
+    }
+
+    /**
+     * The type of the objects picked up without a type
+     */
+    public static final int DefaultType = 0;
+
+    /**
+     * The default max number of idle objects of each type
+     */
+    public static final int DefaultMaxPoolSize = 8;
+
+    private static final int NoSlot = -1;
+
+    /*
+     * The idle objects of one type. The used objects sit in array slots linked from the most to the
+     * least recently returned, and are indexed by their preferred key, so that neither a pick up
+     * nor a return walks the pool or allocates.
+     */
+    private static class TypePool<V> {
+        Object[] objects;
+        int[] keys;
+        int[] prev;
+        int[] next;
+        int head = NoSlot;
+        int tail = NoSlot;
+        int usedCount;
+
+        // The released slots, and the slots never used so far start at nextSlot
+        int[] freeSlots;
+        int freeCount;
+        int nextSlot;
+
+        IntIntMap keyToSlot = new IntIntMap();
+
+        // Prewarmed objects which never left the pool
+        Object[] newObjects;
+        int newCount;
+
+        int maxSize;
+
+        TypePool(int maxSize) {
+            this.maxSize = maxSize;
+            int capacity = Math.min(maxSize, DefaultMaxPoolSize);
+            objects = new Object[capacity];
+            keys = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            freeSlots = new int[capacity];
+            newObjects = new Object[capacity];
+        }
+
+        int size() {
+            return usedCount + newCount;
+        }
+
+        void pushUsed(Object v, int key) {
+            int slot;
+            if (freeCount > 0) {
+                slot = freeSlots[--freeCount];
+            } else {
+                if (nextSlot == objects.length) {
+                    growSlots();
+                }
+                slot = nextSlot++;
+            }
+            objects[slot] = v;
+            keys[slot] = key;
+            prev[slot] = NoSlot;
+            next[slot] = head;
+            if (head != NoSlot) {
+                prev[head] = slot;
+            } else {
+                tail = slot;
+            }
+            head = slot;
+            usedCount++;
+            if (key >= 0) {
+                // The most recently returned object wins a shared key
+                keyToSlot.put(key, slot);
+            }
+        }
+
+        Object removeUsed(int slot) {
+            Object v = objects[slot];
+            objects[slot] = null;
+            if (prev[slot] != NoSlot) {
+                next[prev[slot]] = next[slot];
+            } else {
+                head = next[slot];
+            }
+            if (next[slot] != NoSlot) {
+                prev[next[slot]] = prev[slot];
+            } else {
+                tail = prev[slot];
+            }
+            usedCount--;
+            int key = keys[slot];
+            if (key >= 0 && keyToSlot.get(key, NoSlot) == slot) {
+                keyToSlot.remove(key, NoSlot);
+            }
+            freeSlots[freeCount++] = slot;
+            return v;
+        }
+
+        void pushNew(Object v) {
+            if (newCount == newObjects.length) {
+                newObjects = grow(newObjects);
+            }
+            newObjects[newCount++] = v;
+        }
+
+        Object popNew() {
+            Object v = newObjects[--newCount];
+            newObjects[newCount] = null;
+            return v;
+        }
+
+        private void growSlots() {
+            int capacity = Math.max(1, objects.length * 2);
+            Object[] objects = new Object[capacity];
+            System.arraycopy(this.objects, 0, objects, 0, this.objects.length);
+            this.objects = objects;
+            keys = grow(keys, capacity);
+            prev = grow(prev, capacity);
+            next = grow(next, capacity);
+            freeSlots = grow(freeSlots, capacity);
+        }
+
+        private static Object[] grow(Object[] array) {
+            Object[] grown = new Object[Math.max(1, array.length * 2)];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+
+        private static int[] grow(int[] array, int capacity) {
+            int[] grown = new int[capacity];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+    }
+
+    private ObjectPoolConsumer<V> mObjectCreator;
+    // The pools by type, the types are looked up through an IntIntMap so that nothing is boxed
+    private IntIntMap mTypeIndices = new IntIntMap();
+    private TypePool<V>[] mPools = newTypePoolArray(1);
+    private int mPoolCount;
+    private int mDefaultMaxPoolSize = DefaultMaxPoolSize;
+
+    /**
+     * Initializes the pool, each type keeps at most DefaultMaxPoolSize idle objects
+     */
+    public ObjectPool(ObjectPoolConsumer<V> objectCreator) {
+        mObjectCreator = objectCreator;
+    }
+
+    /**
+     * Sets the max number of idle objects kept for the types without a max size of their own
+     */
+    public void setDefaultMaxPoolSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        mDefaultMaxPoolSize = maxSize;
+    }
+
+    /**
+     * Sets the max number of idle objects kept for the given type, the least recently returned
+     * objects above it are evicted.
+     */
+    public void setMaxPoolSize(int type, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        TypePool<V> pool = getTypePool(type);
+        pool.maxSize = maxSize;
+        trimPool(pool, maxSize);
+    }
+
+    /**
+     * Returns the number of idle objects of the given type
+     */
+    public int getPoolSize(int type) {
+        TypePool<V> pool = findTypePool(type);
+        return pool != null ? pool.size() : 0;
+    }
+
+    /**
+     * Creates new objects until the pool holds count idle objects of the given type, or is full.
+     *
+     * @return the number of objects created
+     */
+    public int prewarm(int type, int count) {
+        TypePool<V> pool = getTypePool(type);
+        int target = Math.min(count, pool.maxSize);
+        int created = 0;
+        while (pool.size() < target) {
+            pool.pushNew(mObjectCreator.createObject(type));
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * Adds an object created outside of the pool, e.g. on another thread, as a new idle object.
+     * The object is discarded if the pool of its type is full.
+     *
+     * @return whether the object was kept
+     */
+    public boolean addNewObject(int type, V v) {
+        TypePool<V> pool = getTypePool(type);
+        if (pool.size() >= pool.maxSize) {
+            mObjectCreator.discardObject(v, true);
+            return false;
+        }
+        pool.pushNew(v);
+        return true;
+    }
+
+    /**
+     * Evicts the idle objects of every type
+     */
+    public void clear() {
+        for (int i = 0; i < mPoolCount; i++) {
+            trimPool(mPools[i], 0);
+        }
+    }
+
+    /**
+     * Evicts the idle objects of every type accepted by the filter, e.g. the ones still tied to a
+     * view going away
+     *
+     * @return the number of objects evicted
+     */
+    @SuppressWarnings("unchecked")
+    public int evictObjects(ObjectFilter<V> filter) {
+        int evicted = 0;
+        for (int i = 0; i < mPoolCount; i++) {
+            TypePool<V> pool = mPools[i];
+            for (int slot = pool.head; slot != NoSlot; ) {
+                int nextSlot = pool.next[slot];
+                V v = (V) pool.objects[slot];
+                if (filter.accept(v)) {
+                    pool.removeUsed(slot);
+                    mObjectCreator.discardObject(v, false);
+                    evicted++;
+                }
+                slot = nextSlot;
+            }
+            int kept = 0;
+            for (int j = 0; j < pool.newCount; j++) {
+                V v = (V) pool.newObjects[j];
+                if (filter.accept(v)) {
+                    mObjectCreator.discardObject(v, true);
+                    evicted++;
+                } else {
+                    pool.newObjects[kept++] = v;
+                }
+            }
+            for (int j = kept; j < pool.newCount; j++) {
+                pool.newObjects[j] = null;
+            }
+            pool.newCount = kept;
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns a view into the pool
+     */
+    public void returnObjectToPool(V v) {
+        mObjectCreator.prepareObjectToEnterPool(v);
+        TypePool<V> pool = getTypePool(mObjectCreator.getObjectType(v));
+        if (pool.maxSize == 0) {
+            mObjectCreator.discardObject(v, false);
+            return;
+        }
+        // Keep the returned object, it is the most likely to be picked up again by its key
+        trimPool(pool, pool.maxSize - 1);
+        pool.pushUsed(v, mObjectCreator.getPreferredKey(v));
+    }
+
+    /**
+     * Gets a view of the default type from the pool and prepares it
+     */
+    public V pickUpObjectFromPool(int preferredKey, int prepareData) {
+        return pickUpObjectFromPool(DefaultType, preferredKey, prepareData);
+    }
+
+    /**
+     * Gets a view of the given type from the pool, preferably the one returned with the given key,
+     * and prepares it
+     */
+    @SuppressWarnings("unchecked")
+    public V pickUpObjectFromPool(int type, int preferredKey, int prepareData) {
+        V v;
+        boolean isNewObject = false;
+        TypePool<V> pool = findTypePool(type);
+        if (pool != null && pool.usedCount > 0) {
+            int slot = preferredKey >= 0 ? pool.keyToSlot.get(preferredKey, NoSlot) : NoSlot;
+            // Otherwise, just grab the most recently returned view
+            v = (V) pool.removeUsed(slot != NoSlot ? slot : pool.head);
+        } else if (pool != null && pool.newCount > 0) {
+            v = (V) pool.popNew();
+            isNewObject = true;
+        } else {
+            v = mObjectCreator.createObject(type);
+            isNewObject = true;
+        }
+        mObjectCreator.prepareObjectToLeavePool(v, prepareData, isNewObject);
+        return v;
+    }
+
+    /**
+     * Evicts the least recently returned objects, then the prewarmed ones, down to the given size
+     */
+    @SuppressWarnings("unchecked")
+    private void trimPool(TypePool<V> pool, int size) {
+        while (pool.size() > size) {
+            if (pool.usedCount > 0) {
+                mObjectCreator.discardObject((V) pool.removeUsed(pool.tail), false);
+            } else {
+                mObjectCreator.discardObject((V) pool.popNew(), true);
+            }
+        }
+    }
+
+    private TypePool<V> findTypePool(int type) {
+        int index = mTypeIndices.get(type, -1);
+        return index >= 0 ? mPools[index] : null;
+    }
+
+    private TypePool<V> getTypePool(int type) {
+        TypePool<V> pool = findTypePool(type);
+        if (pool == null) {
+            pool = new TypePool<>(mDefaultMaxPoolSize);
+            if (mPoolCount == mPools.length) {
+                TypePool<V>[] pools = newTypePoolArray(mPools.length * 2);
+                System.arraycopy(mPools, 0, pools, 0, mPoolCount);
+                mPools = pools;
+            }
+            mTypeIndices.put(type, mPoolCount);
+            mPools[mPoolCount++] = pool;
+        }
+        return pool;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> TypePool<V>[] newTypePoolArray(int length) {
+        return (TypePool<V>[]) new TypePool[length];
+    }
+}
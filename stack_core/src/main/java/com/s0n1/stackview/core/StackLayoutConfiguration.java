@@ -0,0 +1,24 @@
+package com.s0n1.stackview.core;
+
+/* The configuration values the stack layout depends on */
+public class StackLayoutConfiguration {
+
+    /**
+     * Task stack
+     */
+    public int taskStackTopPaddingPx;
+    public float taskStackWidthPaddingPct;
+
+    public int taskStackBottomInsetPx;
+
+    public int taskViewTranslationZMinPx;
+    public int taskViewTranslationZMaxPx;
+
+    /**
+     * Stacking curve, the default one uses the tables precomputed at build time
+     */
+    public StackingCurve curve = new LogStackingCurve(PrecomputedCurve.XScale, PrecomputedCurve.LogBase);
+    public int curvePrecisionSteps = PrecomputedCurve.PrecisionSteps;
+    //最小卡片的显示比率
+    public float stackPeekMinScale = 0.8f; // The min scale of the last card in the peek area
+}
@@ -0,0 +1,317 @@
+package com.s0n1.stackview.core;
+
+/* The stack layout: the curve, the card progress, the scroll bounds and the card transforms */
+public class StackViewLayoutAlgorithm {
+
+    private StackLayoutConfiguration mConfig;
+
+    // The various rects that define the stack view
+    private IntRect mViewRect = new IntRect();
+    private IntRect mStackVisibleRect = new IntRect();
+    private IntRect mStackRect = new IntRect();
+    private IntRect mTaskRect = new IntRect();
+
+    // The min/max scroll progress
+    private float mMinScrollP;
+    private float mMaxScrollP;
+    private float mInitialScrollP;
+    private int mBetweenAffiliationOffset;
+
+    // The progress of each card is 0.5f + index * mTaskProgressStep, so there is no need to store it
+    private static final float BackMostTaskProgress = 0.5f;
+    private float mTaskProgressStep;
+    private int mTaskCount;
+
+    // 最底部的卡片被挡住的区域 (0f to 0.7f)
+    // changing value may against to mConfig.taskStackBottomInsetPx
+    // Test: Make 2 stack card on phone landscape, check if can over slide up
+    private static final float SCROLL_HIDED_BOTTOM_RATE = 0.46f;
+
+    // The shared tables of the stacking curve
+    private CurveTables mCurveTables;
+
+    public StackViewLayoutAlgorithm(StackLayoutConfiguration config) {
+        mConfig = config;
+
+        // Load the path, the tables are only computed once per curve
+        mCurveTables = CurveTables.get(config.curve, config.curvePrecisionSteps);
+    }
+
+    /**
+     * Sets the curve the cards are stacked along, the min/max scroll must be recomputed afterwards.
+     */
+    public void setStackingCurve(StackingCurve curve) {
+        mConfig.curve = curve;
+        mCurveTables = CurveTables.get(curve, mConfig.curvePrecisionSteps);
+    }
+
+    /**
+     * Returns the rect of the visible stack area
+     */
+    public IntRect getStackVisibleRect() {
+        return mStackVisibleRect;
+    }
+
+    /**
+     * Returns the rect of an untransformed card
+     */
+    public IntRect getTaskRect() {
+        return mTaskRect;
+    }
+
+    /**
+     * Returns the min scroll progress
+     */
+    public float getMinScrollP() {
+        return mMinScrollP;
+    }
+
+    /**
+     * Returns the max scroll progress
+     */
+    public float getMaxScrollP() {
+        return mMaxScrollP;
+    }
+
+    /**
+     * Returns the scroll progress when the stack is first shown
+     */
+    public float getInitialScrollP() {
+        return mInitialScrollP;
+    }
+
+    /**
+     * Computes the stack and task rects
+     */
+    public void computeRects(int windowWidth, int windowHeight, IntRect taskStackBounds) {
+        // Compute the stack rects
+        mViewRect.set(0, 0, windowWidth, windowHeight);
+        mStackRect.set(taskStackBounds);
+        mStackVisibleRect.set(taskStackBounds);
+        mStackVisibleRect.bottom = mViewRect.bottom;
+
+        int widthPadding = (int) (mConfig.taskStackWidthPaddingPct * mStackRect.width());
+        int heightPadding = mConfig.taskStackTopPaddingPx;
+        mStackRect.inset(widthPadding, heightPadding);
+
+        int bottomInsetPx = mConfig.taskStackBottomInsetPx;
+
+        // Compute the task rect
+        int width = mStackRect.width();
+        int height = mStackRect.height();
+        int left = mStackRect.left + (mStackRect.width() - width) / 2;
+        mTaskRect.set(left, mStackRect.top,
+                left + width, mStackRect.top + height - bottomInsetPx);
+
+        // Update the affiliation offsets
+        //这里设置cardview之间的各种参数
+        float visibleTaskPct = 0.5f;
+        mBetweenAffiliationOffset = (int) (visibleTaskPct * mTaskRect.height());
+    }
+
+    /**
+     * Computes the minimum and maximum scroll progress values.  This method may be called before
+     * the RecentsConfiguration is set, so we need to pass in the alt-tab state.
+     */
+    public void computeMinMaxScroll(int itemCount) {
+        // Reset the progress index
+        mTaskCount = Math.max(itemCount, 0);
+        mTaskProgressStep = 0f;
+
+        // Return early if we have no tasks
+        if (itemCount < 1) {
+            mMinScrollP = mMaxScrollP = 0;
+            return;
+        }
+
+        // Note that we should account for the scale difference of the offsets at the screen bottom
+        int taskHeight = mTaskRect.height();
+        float pAtBottomOfStackRect = screenYToCurveProgress(mStackVisibleRect.bottom);
+        float pBetweenAffiliateOffset = pAtBottomOfStackRect -
+                screenYToCurveProgress(mStackVisibleRect.bottom - mBetweenAffiliationOffset);
+        float pTaskHeightOffset = pAtBottomOfStackRect -
+                screenYToCurveProgress(mStackVisibleRect.bottom - taskHeight);
+        float pNavBarOffset = pAtBottomOfStackRect -
+                screenYToCurveProgress(mStackVisibleRect.bottom - (mStackVisibleRect.bottom - mStackRect.bottom));
+
+        // Update the task offsets, each card peeks pBetweenAffiliateOffset above the previous one
+        mTaskProgressStep = pBetweenAffiliateOffset;
+        float pAtFrontMostCardTop = getTaskProgress(itemCount - 1);
+
+        mMaxScrollP = pAtFrontMostCardTop - ((1f - pTaskHeightOffset - pNavBarOffset));
+        mMinScrollP = itemCount == 1 ? Math.max(mMaxScrollP, 0f) : 0f;
+        mInitialScrollP = Math.max(0, pAtFrontMostCardTop);
+
+        if (itemCount != 1)
+            mMaxScrollP -= SCROLL_HIDED_BOTTOM_RATE;
+    }
+
+    /**
+     * Returns the progress of the card at the given index, the back-most card is at 0.5f.
+     */
+    public float getTaskProgress(int index) {
+        return BackMostTaskProgress + index * mTaskProgressStep;
+    }
+
+    /**
+     * Computes the range of visible cards for the given stack scroll. Since the card progress is
+     * monotonic in the index, the range is found from the stack scroll directly instead of walking
+     * the whole stack.
+     *
+     * @param visibleRangeOut is set to {frontMostVisibleIndex, backMostVisibleIndex}
+     * @return whether any card is visible
+     */
+    public boolean computeVisibleRange(float stackScroll, int[] visibleRangeOut) {
+        visibleRangeOut[0] = visibleRangeOut[1] = -1;
+        int itemCount = mTaskCount;
+        if (itemCount < 1) {
+            return false;
+        }
+
+        // The front-most visible card is the last one which top is not below the screen (p <= 1)
+        int front;
+        if (mTaskProgressStep > 0) {
+            front = (int) Math.floor((stackScroll + 1f - BackMostTaskProgress) / mTaskProgressStep);
+            front = Math.max(-1, Math.min(front, itemCount - 1));
+            // Correct the rounding errors of the inverse
+            while (front < itemCount - 1 && getTaskProgress(front + 1) - stackScroll <= 1f) {
+                front++;
+            }
+            while (front >= 0 && getTaskProgress(front) - stackScroll > 1f) {
+                front--;
+            }
+        } else {
+            front = getTaskProgress(itemCount - 1) - stackScroll > 1f ? -1 : itemCount - 1;
+        }
+        if (front < 0) {
+            return false;
+        }
+
+        // A card above the top (p < 0) is only visible if it is the front-most card, see
+        // getStackTransform()
+        float pFront = getTaskProgress(front) - stackScroll;
+        if (pFront < 0f && front < itemCount - 1) {
+            return false;
+        }
+
+        // Cards behind are visible as long as the card in front of them is still below the top
+        // (p > 0), so the back-most visible card is the one just behind the first card with p > 0
+        int back;
+        if (mTaskProgressStep > 0) {
+            int k = (int) Math.floor((stackScroll - BackMostTaskProgress) / mTaskProgressStep) + 1;
+            k = Math.max(0, Math.min(k, front));
+            while (k > 0 && getTaskProgress(k - 1) - stackScroll > 0f) {
+                k--;
+            }
+            while (k <= front && getTaskProgress(k) - stackScroll <= 0f) {
+                k++;
+            }
+            back = k > front ? front : Math.max(0, k - 1);
+        } else {
+            back = pFront < 0f ? front : 0;
+        }
+
+        visibleRangeOut[0] = front;
+        visibleRangeOut[1] = back;
+        return true;
+    }
+
+    /**
+     * Update/get the transform
+     * 由卡片的progress来构建 view各自OverviewCardTransform 的绘制
+     */
+    public <T extends CardTransform> T getStackTransform(int position, float stackScroll, T transformOut,
+                                                         CardTransform prevTransform) {
+        // Return early if we have an invalid index
+        if (position < 0 || position >= mTaskCount) {
+            transformOut.reset();
+            return transformOut;
+        }
+        return getStackTransform(getTaskProgress(position), stackScroll, transformOut, prevTransform);
+    }
+
+    /**
+     * Update/get the transform
+     */
+    public <T extends CardTransform> T getStackTransform(float taskProgress, float stackScroll, T transformOut,
+                                                         CardTransform prevTransform) {
+        float pTaskRelative = taskProgress - stackScroll;
+        float pBounded = Math.max(0, Math.min(pTaskRelative, 1f));
+        // 大于1就说明已经扩大到屏幕外了 If the task top is outside of the bounds below the screen, then immediately reset it
+        if (pTaskRelative > 1f) {
+            transformOut.reset();
+            transformOut.rect.set(mTaskRect);
+            return transformOut;
+        }
+        // The check for the top is trickier, since we want to show the next task if it is at all
+        // visible, even if p < 0.
+        if (pTaskRelative < 0f) {
+            if (prevTransform != null && Float.compare(prevTransform.p, 0f) <= 0) {
+                transformOut.reset();
+                transformOut.rect.set(mTaskRect);
+                return transformOut;
+            }
+        }
+        float scale = curveProgressToScale(pBounded);
+        int scaleYOffset = (int) (((1f - scale) * mTaskRect.height()) / 2);
+        int minZ = mConfig.taskViewTranslationZMinPx;
+        int maxZ = mConfig.taskViewTranslationZMaxPx;
+        transformOut.scale = scale;
+        transformOut.translationY = curveProgressToScreenY(pBounded) - mStackVisibleRect.top -
+                scaleYOffset;
+        transformOut.translationZ = Math.max(minZ, minZ + (pBounded * (maxZ - minZ)));
+        transformOut.rect.set(mTaskRect);
+        transformOut.rect.offset(0, transformOut.translationY);
+        transformOut.rect.scaleAboutCenter(transformOut.scale);
+        transformOut.visible = true;
+        transformOut.p = pTaskRelative;
+        return transformOut;
+    }
+
+    /**
+     * Returns the scroll to such task top = 1f;
+     */
+    public float getStackScrollForTask(int index) {
+        return getTaskProgress(index);
+    }
+
+    /**
+     * Converts from the progress along the curve to a screen coordinate.
+     */
+    public int curveProgressToScreenY(float p) {
+        if (p < 0 || p > 1) return mStackVisibleRect.top + (int) (p * mStackVisibleRect.height());
+        float x = mCurveTables.progressToX(p);
+        return mStackVisibleRect.top + (int) (x * mStackVisibleRect.height());
+    }
+
+    /**
+     * Converts from the progress along the curve to a scale.
+     * 扩大的范围线性计算
+     *
+     * @param p 当前比率
+     * @return 经由缩小值计算后的比率
+     */
+    private float curveProgressToScale(float p) {
+        float peekMinScale = mConfig.stackPeekMinScale;
+        if (p < 0) return peekMinScale;
+        if (p > 1) return 1f;
+        float scaleRange = (1f - peekMinScale);
+        return peekMinScale + (p * scaleRange);// scale
+    }
+
+
+    /**
+     * 纵坐标装换成曲线走势
+     * Converts from a screen coordinate to the progress along the curve.
+     *
+     * @param screenY 需要转换的高度
+     * @return 输入高度实际占曲线的百分比
+     */
+    public float screenYToCurveProgress(int screenY) {
+        float x = (float) (screenY - mStackVisibleRect.top) / mStackVisibleRect.height();
+        if (x < 0 || x > 1) return x;
+
+        //转换后的弧度比 和 其小数弧度 的和
+        return mCurveTables.xToProgress(x);
+    }
+}
@@ -0,0 +1,20 @@
+package com.s0n1.stackview.core;
+
+/**
+ * The curve the cards are stacked along. The screen position of a card is f(x), where x is the
+ * arc length along the curve normalized to 0..1, so a flat area of the curve packs the cards close
+ * together. The arc length tables are computed once per key and shared, see CurveTables.
+ */
+public interface StackingCurve {
+
+    /**
+     * The curve, it must be increasing over 0..1 with f(0) = 0 and f(1) close to 1.
+     */
+    float f(float x);
+
+    /**
+     * Returns a key unique to this kind of curve and its parameters. Curves with equal keys share
+     * their tables.
+     */
+    String getKey();
+}
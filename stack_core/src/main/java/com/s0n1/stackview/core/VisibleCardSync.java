@@ -0,0 +1,59 @@
+package com.s0n1.stackview.core;
+
+/*
+ * The bookkeeping of one sync of the attached cards with the visible range of a stack: the cards
+ * which left the range are returned, the positions which entered it get a card, and every visible
+ * card is then updated from the front to the back. Shared by StackView and its allocation test, it
+ * must not allocate once the pool and the maps are warmed up.
+ */
+public final class VisibleCardSync {
+
+    public interface Callbacks<V> {
+        /**
+         * Returns a card which left the visible range, it must be removed from the attached cards
+         */
+        void returnCard(V card);
+
+        /**
+         * Returns a card for a position which entered the visible range, it must be put into the
+         * attached cards
+         */
+        V pickUpCard(int position);
+
+        /**
+         * Called for each visible position, from the front most one
+         *
+         * @param pickedUp whether the card was picked up by this sync
+         */
+        void onCardVisible(int position, V card, boolean pickedUp);
+    }
+
+    private VisibleCardSync() {
+    }
+
+    /**
+     * Synchronizes the attached cards, by position, with the visible range of the stack
+     *
+     * @param visibleRange the front and back most visible positions, see CardTransformWindow
+     */
+    public static <V> void synchronize(IntObjectMap<V> attachedCards, int[] visibleRange,
+                                       boolean isValidVisibleRange, Callbacks<V> callbacks) {
+        // Return the cards which are no longer visible, backwards since returning removes them
+        for (int j = attachedCards.size() - 1; j >= 0; j--) {
+            int position = attachedCards.keyAt(j);
+            if (position < visibleRange[1] || visibleRange[0] < position) {
+                callbacks.returnCard(attachedCards.valueAt(j));
+            }
+        }
+
+        // Pick up all the newly visible cards and update all the existing ones
+        for (int i = visibleRange[0]; isValidVisibleRange && i >= visibleRange[1]; i--) {
+            V card = attachedCards.get(i);
+            boolean pickedUp = card == null;
+            if (pickedUp) {
+                card = callbacks.pickUpCard(i);
+            }
+            callbacks.onCardVisible(i, card, pickedUp);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.s0n1.stackview.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ListDiffTest {
+
+    private static final ListDiff.ContentCallback SameContents = new ListDiff.ContentCallback() {
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return true;
+        }
+    };
+
+    @Test
+    public void identicalListsHaveNoOperation() {
+        long[] ids = {1, 2, 3, 4};
+        ListDiff.Result result = ListDiff.compute(ids, ids.clone(), SameContents);
+        assertEquals(0, result.getOperationCount());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i, result.getNewPosition(i));
+            assertEquals(i, result.getOldPosition(i));
+        }
+    }
+
+    @Test
+    public void runsOfRemovesAndInsertsAreMerged() {
+        ListDiff.Result result = ListDiff.compute(new long[]{1, 2, 3, 4, 5}, new long[]{1, 5, 6, 7},
+                SameContents);
+        assertEquals(2, result.getOperationCount());
+        assertOperation(result, 0, ListDiff.OpRemove, 1, 3);
+        assertOperation(result, 1, ListDiff.OpInsert, 2, 2);
+        assertEquals(-1, result.getNewPosition(2));
+        assertEquals(-1, result.getOldPosition(3));
+        assertEquals(1, result.getNewPosition(4));
+    }
+
+    @Test
+    public void movedItemKeepsTheOthers() {
+        ListDiff.Result result = ListDiff.compute(new long[]{1, 2, 3, 4}, new long[]{2, 3, 4, 1},
+                SameContents);
+        assertEquals(1, result.getOperationCount());
+        assertEquals(ListDiff.OpMove, result.getOperationType(0));
+        assertEquals(0, result.getOperationPosition(0));
+        assertEquals(3, result.getOperationToPosition(0));
+    }
+
+    @Test
+    public void changesApplyToTheNewList() {
+        final long[] oldIds = {1, 2, 3};
+        final long[] newIds = {3, 1, 2};
+        ListDiff.Result result = ListDiff.compute(oldIds, newIds, new ListDiff.ContentCallback() {
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldIds[oldPosition] != 3;
+            }
+        });
+        assertTrue(result.isContentChanged(0));
+        assertFalse(result.isContentChanged(1));
+        int last = result.getOperationCount() - 1;
+        assertOperation(result, last, ListDiff.OpChange, 0, 1);
+        assertEquals(asList(newIds), applyScript(oldIds, newIds, result));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateOldIdThrows() {
+        ListDiff.compute(new long[]{1, 2, 1}, new long[]{1, 2}, SameContents);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateNewIdThrows() {
+        ListDiff.compute(new long[]{1, 2}, new long[]{2, 2}, SameContents);
+    }
+
+    @Test
+    public void randomScriptsTurnTheOldListIntoTheNewOne() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            int size = random.nextInt(40);
+            List<Long> oldList = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                oldList.add((long) i);
+            }
+            List<Long> newList = new ArrayList<>(oldList);
+            Collections.shuffle(newList, random);
+            for (int i = newList.size() - 1; i >= 0; i--) {
+                if (random.nextInt(4) == 0) {
+                    newList.remove(i);
+                }
+            }
+            for (int i = random.nextInt(5); i > 0; i--) {
+                newList.add(random.nextInt(newList.size() + 1), 1000L + i);
+            }
+
+            long[] oldIds = toArray(oldList);
+            long[] newIds = toArray(newList);
+            ListDiff.Result result = ListDiff.compute(oldIds, newIds, SameContents);
+            assertEquals(newList, applyScript(oldIds, newIds, result));
+            for (int j = 0; j < newIds.length; j++) {
+                int oldPosition = result.getOldPosition(j);
+                assertEquals(newIds[j] < 1000 ? newIds[j] : -1, oldPosition);
+                if (oldPosition >= 0) {
+                    assertEquals(j, result.getNewPosition(oldPosition));
+                }
+            }
+            assertEquals(countMatched(result) - longestIncreasingSubsequence(result), countMoves(result));
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void largeReversalMovesAllButOneItem() {
+        int size = 100000;
+        long[] oldIds = new long[size];
+        long[] newIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            oldIds[i] = i;
+            newIds[i] = size - 1 - i;
+        }
+        ListDiff.Result result = ListDiff.compute(oldIds, newIds, SameContents);
+        assertEquals(size - 1, countMoves(result));
+        assertEquals(asList(newIds), applyScript(oldIds, newIds, result));
+    }
+
+    private static void assertOperation(ListDiff.Result result, int index, int type, int position,
+                                        int itemCount) {
+        assertEquals(type, result.getOperationType(index));
+        assertEquals(position, result.getOperationPosition(index));
+        assertEquals(itemCount, result.getOperationItemCount(index));
+    }
+
+    /**
+     * Applies the script to a copy of the old list, the moves through an array so that large
+     * scripts stay fast enough
+     */
+    private static List<Long> applyScript(long[] oldIds, long[] newIds, ListDiff.Result result) {
+        List<Long> list = asList(oldIds);
+        for (int i = 0; i < result.getOperationCount(); i++) {
+            int position = result.getOperationPosition(i);
+            switch (result.getOperationType(i)) {
+                case ListDiff.OpRemove:
+                    list.subList(position, position + result.getOperationItemCount(i)).clear();
+                    break;
+                case ListDiff.OpInsert:
+                    for (int c = 0; c < result.getOperationItemCount(i); c++) {
+                        list.add(position + c, newIds[position + c]);
+                    }
+                    break;
+                case ListDiff.OpMove:
+                    list.add(result.getOperationToPosition(i), list.remove(position));
+                    break;
+                default:
+                    for (int c = 0; c < result.getOperationItemCount(i); c++) {
+                        assertTrue(result.isContentChanged(position + c));
+                    }
+                    break;
+            }
+        }
+        return list;
+    }
+
+    private static int countMoves(ListDiff.Result result) {
+        int moves = 0;
+        for (int i = 0; i < result.getOperationCount(); i++) {
+            if (result.getOperationType(i) == ListDiff.OpMove) {
+                moves++;
+            }
+        }
+        return moves;
+    }
+
+    private static int countMatched(ListDiff.Result result) {
+        int matched = 0;
+        for (int j = 0; j < result.getNewListSize(); j++) {
+            if (result.getOldPosition(j) >= 0) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private static int longestIncreasingSubsequence(ListDiff.Result result) {
+        int[] tails = new int[result.getNewListSize()];
+        int length = 0;
+        for (int j = 0; j < result.getNewListSize(); j++) {
+            int value = result.getOldPosition(j);
+            if (value < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tails[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            tails[low] = value;
+            if (low == length) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    private static List<Long> asList(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static long[] toArray(List<Long> list) {
+        long[] ids = new long[list.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = list.get(i);
+        }
+        return ids;
+    }
+}
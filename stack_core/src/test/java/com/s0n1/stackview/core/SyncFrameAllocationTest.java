@@ -0,0 +1,167 @@
+package com.s0n1.stackview.core;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Runs the bookkeeping of StackView.synchronizeStackViewsWithModel(), scrolling back and forth
+ * through the stack like SyncFrameBenchmark, and asserts that it allocates nothing once warmed up.
+ */
+public class SyncFrameAllocationTest implements ObjectPool.ObjectPoolConsumer<SyncFrameAllocationTest.Holder>,
+        VisibleCardSync.Callbacks<SyncFrameAllocationTest.Holder> {
+
+    // The number of frames it takes to scroll from the min to the max scroll
+    private static final int FramesPerSweep = 600;
+    private static final int WarmUpFrames = 20 * FramesPerSweep;
+    private static final int MeasuredFrames = 4 * FramesPerSweep;
+    // The JIT compiling the loop may still allocate a few bytes on this thread during a round,
+    // while an allocation of the loop itself shows up in every round
+    private static final int MeasuredRounds = 5;
+
+    static class Holder {
+        int position = -1;
+    }
+
+    com.sun.management.ThreadMXBean mThreadBean;
+    StackViewLayoutAlgorithm mLayoutAlgorithm;
+    CardTransformWindow mCardTransforms = new CardTransformWindow();
+    CardTransform mTransform = new CardTransform();
+    ObjectPool<Holder> mPool;
+    IntObjectMap<Holder> mAttachedHolders = new IntObjectMap<>();
+    int[] mVisibleRange = new int[2];
+    float mStackScroll;
+    float mScrollStep;
+    int mCreatedCount;
+    int mVisibleCount;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void synchronizeSmallStackDoesNotAllocate() {
+        assertNoAllocation(10);
+    }
+
+    @Test
+    public void synchronizeLargeStackDoesNotAllocate() {
+        assertNoAllocation(1000);
+    }
+
+    @Test
+    public void synchronizeHugeStackDoesNotAllocate() {
+        assertNoAllocation(1000000);
+    }
+
+    private void assertNoAllocation(int stackSize) {
+        StackLayoutConfiguration config = new StackLayoutConfiguration();
+        config.taskStackTopPaddingPx = 0;
+        config.taskStackWidthPaddingPct = 0.04444f;
+        config.taskStackBottomInsetPx = 42;
+        config.taskViewTranslationZMinPx = 53;
+        config.taskViewTranslationZMaxPx = 210;
+        mLayoutAlgorithm = new StackViewLayoutAlgorithm(config);
+        mLayoutAlgorithm.computeRects(1080, 1920, new IntRect(0, 64, 1080, 1920));
+        mLayoutAlgorithm.computeMinMaxScroll(stackSize);
+        mPool = new ObjectPool<>(this);
+        mStackScroll = mLayoutAlgorithm.getMinScrollP();
+        mScrollStep = (mLayoutAlgorithm.getMaxScrollP() - mLayoutAlgorithm.getMinScrollP()) / FramesPerSweep;
+
+        runFrames(WarmUpFrames);
+        int createdCount = mCreatedCount;
+        mVisibleCount = 0;
+
+        long threadId = Thread.currentThread().getId();
+        // The allocations of the measurement itself, if any
+        long start = mThreadBean.getThreadAllocatedBytes(threadId);
+        long overhead = mThreadBean.getThreadAllocatedBytes(threadId) - start;
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MeasuredRounds && allocated != 0; round++) {
+            long before = mThreadBean.getThreadAllocatedBytes(threadId);
+            runFrames(MeasuredFrames);
+            long after = mThreadBean.getThreadAllocatedBytes(threadId);
+            allocated = Math.min(allocated, after - before - overhead);
+        }
+
+        assertTrue("no card was visible", mVisibleCount > 0);
+        assertEquals("cards created after the warm up", createdCount, mCreatedCount);
+        assertEquals("bytes allocated by " + MeasuredFrames + " frames", 0, allocated);
+    }
+
+    private void runFrames(int frames) {
+        for (int f = 0; f < frames; f++) {
+            mStackScroll += mScrollStep;
+            if (mStackScroll > mLayoutAlgorithm.getMaxScrollP() || mStackScroll < mLayoutAlgorithm.getMinScrollP()) {
+                mScrollStep = -mScrollStep;
+                mStackScroll += 2 * mScrollStep;
+            }
+
+            boolean isValidVisibleRange = mCardTransforms.update(mLayoutAlgorithm, mStackScroll);
+            mCardTransforms.getVisibleRange(mVisibleRange);
+            VisibleCardSync.synchronize(mAttachedHolders, mVisibleRange, isValidVisibleRange, this);
+        }
+    }
+
+    @Override
+    public void returnCard(Holder holder) {
+        mPool.returnObjectToPool(holder);
+    }
+
+    @Override
+    public Holder pickUpCard(int position) {
+        return mPool.pickUpObjectFromPool(position, position);
+    }
+
+    @Override
+    public void onCardVisible(int position, Holder holder, boolean pickedUp) {
+        CardTransform transform = mCardTransforms.get(position, mTransform);
+        assertEquals(position, holder.position);
+        if (transform.visible) {
+            mVisibleCount++;
+        }
+    }
+
+    @Override
+    public Holder createObject(int type) {
+        mCreatedCount++;
+        return new Holder();
+    }
+
+    @Override
+    public int getObjectType(Holder holder) {
+        return ObjectPool.DefaultType;
+    }
+
+    @Override
+    public int getPreferredKey(Holder holder) {
+        return holder.position;
+    }
+
+    @Override
+    public void prepareObjectToEnterPool(Holder holder) {
+        int position = holder.position;
+        if (mAttachedHolders.get(position) == holder) {
+            mAttachedHolders.remove(position);
+        }
+    }
+
+    @Override
+    public void prepareObjectToLeavePool(Holder holder, int position, boolean isNewObject) {
+        mAttachedHolders.put(position, holder);
+        holder.position = position;
+    }
+
+    @Override
+    public void discardObject(Holder holder, boolean isNewObject) {
+    }
+}
@@ -9,8 +9,17 @@ import android.view.animation.AnimationUtils;
 import android.view.animation.Interpolator;
 
 import com.s0n1.stackview.R;
+import com.s0n1.stackview.core.StackLayoutConfiguration;
 
-public class StackViewConfiguration {
+public class StackViewConfiguration extends StackLayoutConfiguration {
+
+    /**
+     * Shadow modes below API 21: the shadows are drawn with gradients, or stretched from a bitmap
+     * rendered once per shadow size, which is cheaper where the gradient fill rate is the
+     * bottleneck. API 21+ uses the native elevation shadows.
+     */
+    public static final int ShadowModeGradient = 0;
+    public static final int ShadowModeNinePatch = 1;
 
     /**
      * Interpolators
@@ -24,17 +33,15 @@ public class StackViewConfiguration {
     private Rect displayRect = new Rect();
 
     /**
-     * Task stack
+     * Task stack, the layout values are in StackLayoutConfiguration
      */
     public int taskStackScrollDuration;
-    public int taskStackTopPaddingPx;
-    public float taskStackWidthPaddingPct;
     public float taskStackOverscrollPct;
 
-    public int taskStackBottomInsetPx;
-
-    public int taskViewTranslationZMinPx;
-    public int taskViewTranslationZMaxPx;
+    /**
+     * Task view, ShadowModeGradient or ShadowModeNinePatch
+     */
+    public int taskViewShadowMode;
 
     /**
      * Private constructor
@@ -78,6 +85,7 @@ public class StackViewConfiguration {
         // Task view animation and styles
         taskViewTranslationZMinPx = res.getDimensionPixelSize(R.dimen.recents_task_view_z_min);
         taskViewTranslationZMaxPx = res.getDimensionPixelSize(R.dimen.recents_task_view_z_max);
+        taskViewShadowMode = res.getInteger(R.integer.recents_task_view_shadow_mode);
     }
 
     /**
@@ -0,0 +1,59 @@
+package com.s0n1.stackview.misc;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Systrace/Perfetto sections around the StackView hot paths. They are disabled by default, and a
+ * disabled section only costs a static field check. Toggle it outside of a frame so that the begin
+ * and end calls stay balanced.
+ */
+public class StackViewTrace {
+
+    private static boolean sEnabled;
+    private static boolean sAsyncEnabled;
+
+    /**
+     * Enables the sections, available on API 18+, and the async sections, available on API 29+
+     */
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+        sAsyncEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q;
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void beginSection(String sectionName) {
+        if (sEnabled) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    public static void endSection() {
+        if (sEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Begins a section spanning several frames, such as an animation
+     */
+    @TargetApi(Build.VERSION_CODES.Q)
+    public static void beginAsyncSection(String sectionName, int cookie) {
+        if (sAsyncEnabled) {
+            Trace.beginAsyncSection(sectionName, cookie);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.Q)
+    public static void endAsyncSection(String sectionName, int cookie) {
+        if (sAsyncEnabled) {
+            Trace.endAsyncSection(sectionName, cookie);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.s0n1.stackview.model;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.s0n1.stackview.core.ListDiff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/*
+ * An adapter whose items have stable ids, which can replace its items with a whole new list in
+ * one pass, see submitList()
+ */
+public abstract class StableIdStackViewAdapter<Model> extends StackViewAdapter<Model> {
+
+    // The diffs of submitList() run on mDiffExecutor, only the last submitted list is applied
+    private Executor mDiffExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+    private Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private int mSubmitGeneration;
+
+    protected StableIdStackViewAdapter(List<Model> items) {
+        super(items);
+    }
+
+    /**
+     * Returns the stable id of an item, which must be unique in the list. Called on the executor
+     * of the diffs.
+     */
+    public abstract long getItemId(Model item);
+
+    /**
+     * Returns whether two items with the same id show the same content, the cards of the changed
+     * items are bound again by submitList(). Defaults to equals().
+     */
+    public boolean areContentsTheSame(Model oldItem, Model newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+
+    /**
+     * Sets the executor computing the diffs of submitList()
+     */
+    public void setDiffExecutor(Executor executor) {
+        mDiffExecutor = executor;
+    }
+
+    /**
+     * Replaces the items with a new list. The diff with the current items is computed in the
+     * background from the stable ids, see getItemId(), then the stack is updated in one animated
+     * pass. Must be called on the main thread, and only the last submitted list is applied. The
+     * errors of the diff, such as duplicate ids, are thrown on the main thread.
+     */
+    public void submitList(List<Model> newList) {
+        final List<Model> oldItems = new ArrayList<>(mItems);
+        final List<Model> newItems = newList != null ? new ArrayList<>(newList) : new ArrayList<Model>();
+        final int generation = ++mSubmitGeneration;
+        mDiffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final ListDiff.Result diff;
+                try {
+                    long[] oldIds = new long[oldItems.size()];
+                    for (int i = 0; i < oldIds.length; i++) {
+                        oldIds[i] = getItemId(oldItems.get(i));
+                    }
+                    long[] newIds = new long[newItems.size()];
+                    for (int i = 0; i < newIds.length; i++) {
+                        newIds[i] = getItemId(newItems.get(i));
+                    }
+                    diff = ListDiff.compute(oldIds, newIds, new ListDiff.ContentCallback() {
+                        @Override
+                        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                            return StableIdStackViewAdapter.this.areContentsTheSame(oldItems.get(oldPosition),
+                                    newItems.get(newPosition));
+                        }
+                    });
+                } catch (final RuntimeException e) {
+                    // Report the duplicate ids and the errors of the adapter on the main thread,
+                    // like the other adapter errors, rather than killing the executor thread
+                    mMainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            throw e;
+                        }
+                    });
+                    return;
+                }
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyDiff(generation, oldItems, newItems, diff);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyDiff(int generation, List<Model> oldItems, List<Model> newItems, ListDiff.Result diff) {
+        if (generation != mSubmitGeneration) {
+            // A newer list was submitted meanwhile
+            return;
+        }
+        if (!isSameItems(oldItems)) {
+            // The items were changed directly meanwhile, diff again from the current ones
+            submitList(newItems);
+            return;
+        }
+        mItems = newItems;
+        if (mCallback != null) {
+            mCallback.onCardsUpdated(diff);
+        }
+    }
+
+    private boolean isSameItems(List<Model> items) {
+        if (items.size() != mItems.size()) {
+            return false;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) != mItems.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
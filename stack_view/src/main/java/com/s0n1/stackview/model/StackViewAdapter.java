@@ -1,9 +1,12 @@
 package com.s0n1.stackview.model;
 
 import android.content.Context;
+import android.util.SparseIntArray;
 import android.view.ViewGroup;
 
+import com.s0n1.stackview.core.ListDiff;
 import com.s0n1.stackview.misc.StackViewConfiguration;
+import com.s0n1.stackview.misc.StackViewTrace;
 import com.s0n1.stackview.views.StackViewCard;
 
 import java.util.ArrayList;
@@ -20,11 +23,25 @@ public abstract class StackViewAdapter<Model> {
         void onCardRemoved(int position);
 
         void onCardChange(int position);
+
+        void onCardPayloadChange(int position, Object payload);
+
+        void onCardRangeInserted(int positionStart, int itemCount);
+
+        void onCardRangeRemoved(int positionStart, int itemCount);
+
+        void onCardMoved(int fromPosition, int toPosition);
+
+        /**
+         * Called once the items were replaced by StableIdStackViewAdapter.submitList(), with the
+         * script from the old items
+         */
+        void onCardsUpdated(ListDiff.Result diff);
     }
 
-    private Callback mCallback;
+    Callback mCallback;
 
-    private List<Model> mItems = new ArrayList<>();
+    List<Model> mItems = new ArrayList<>();
 
     protected StackViewAdapter(List<Model> items) {
         if (items != null) {
@@ -49,7 +66,7 @@ public abstract class StackViewAdapter<Model> {
     }
 
     /**
-     * Removes a task
+     * Removes a task, reported to StackView.OnDismissedListener.onCardDismissed() like a swiped card
      */
     public void notifyDataRemoved(int position) {
         if (position < 0 || position >= mItems.size()) {
@@ -64,6 +81,64 @@ public abstract class StackViewAdapter<Model> {
         }
     }
 
+    /**
+     * Inserts the items at the given position. The mutations made within one frame are applied to
+     * the stack in a single pass, which scrolls to the front when the items were added there, like
+     * notifyDataAdded().
+     */
+    public void notifyItemRangeInserted(int positionStart, List<Model> items) {
+        if (positionStart < 0 || positionStart > mItems.size()) {
+            throw new IllegalArgumentException("Position is out of bounds.");
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        mItems.addAll(positionStart, items);
+
+        if (mCallback != null) {
+            mCallback.onCardRangeInserted(positionStart, items.size());
+        }
+    }
+
+    /**
+     * Removes itemCount items from the given position. Unlike notifyDataRemoved(), the items are not
+     * reported as dismissed, only emptying the stack is, see StackView.OnDismissedListener.
+     */
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        if (positionStart < 0 || itemCount < 0 || positionStart + itemCount > mItems.size()) {
+            throw new IllegalArgumentException("Position is out of bounds.");
+        }
+        if (itemCount == 0) {
+            return;
+        }
+
+        mItems.subList(positionStart, positionStart + itemCount).clear();
+
+        if (mCallback != null) {
+            mCallback.onCardRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    /**
+     * Moves an item to another position
+     */
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+        if (fromPosition < 0 || fromPosition >= mItems.size() ||
+                toPosition < 0 || toPosition >= mItems.size()) {
+            throw new IllegalArgumentException("Position is out of bounds.");
+        }
+        if (fromPosition == toPosition) {
+            return;
+        }
+
+        mItems.add(toPosition, mItems.remove(fromPosition));
+
+        if (mCallback != null) {
+            mCallback.onCardMoved(fromPosition, toPosition);
+        }
+    }
+
     public void notifyDataChange(Model newItem, int position) {
         mItems.remove(position);
         mItems.add(position, newItem);
@@ -74,6 +149,20 @@ public abstract class StackViewAdapter<Model> {
         }
     }
 
+    /**
+     * Notifies a partial change of the item at the given position, the card is bound again with
+     * the payload through onBindCardHolder(vh, payloads), and only if it is attached.
+     */
+    public void notifyDataChange(int position, Object payload) {
+        if (position < 0 || position >= mItems.size()) {
+            throw new IllegalArgumentException("Position is out of bounds.");
+        }
+
+        if (mCallback != null) {
+            mCallback.onCardPayloadChange(position, payload);
+        }
+    }
+
     public List<Model> getData() {
         return mItems;
     }
@@ -82,23 +171,103 @@ public abstract class StackViewAdapter<Model> {
         return mItems.size();
     }
 
+    /**
+     * Returns the view type of the card at the given position, the holders are only recycled
+     * between cards of the same type. Defaults to a single type.
+     */
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    /**
+     * Declares the holders the stack creates ahead of time when the adapter is set: put the number
+     * of holders needed per view type into countsOut. Nothing is declared by default.
+     */
+    public void onDeclareCardHolders(SparseIntArray countsOut) {
+    }
+
+    /**
+     * Returns whether onCreateCardHolder() may run on a background thread for the given view type,
+     * which requires it not to touch the view hierarchy or thread bound objects such as Handlers.
+     * The declared holders are otherwise created on the main thread while it is idle.
+     */
+    public boolean canCreateCardHolderOffMainThread(int viewType) {
+        return false;
+    }
+
+    /**
+     * Returns whether the content of vh fills its card with opaque pixels, so that the parts of the
+     * cards behind it are not drawn. Defaults to false, the cards have no background of their own.
+     */
+    public boolean isCardOpaque(StackViewCardHolder<Model> vh) {
+        return false;
+    }
+
+    /**
+     * Returns whether the card of vh can be drawn from a hardware layer while the stack moves,
+     * return false for contents which animate by themselves. The cards rebound while the stack
+     * moves are drawn without a layer anyway.
+     */
+    public boolean canCacheCardInLayer(StackViewCardHolder<Model> vh) {
+        return true;
+    }
+
+    /**
+     * @deprecated use createCardHolder(Context, StackViewConfiguration, int)
+     */
+    @Deprecated
     public final StackViewCardHolder<Model> createCardHolder(Context context, StackViewConfiguration config) {
+        return createCardHolder(context, config, 0);
+    }
+
+    public final StackViewCardHolder<Model> createCardHolder(Context context, StackViewConfiguration config,
+                                                             int viewType) {
         StackViewCard container = new StackViewCard(context);
         container.setConfig(config);
-        StackViewCardHolder<Model> vh = onCreateCardHolder(context, container);
+        StackViewCardHolder<Model> vh = onCreateCardHolder(context, container, viewType);
+        vh.setItemViewType(viewType);
         vh.setContainer(container);
         return vh;
     }
 
     public final void bindCardHolder(StackViewCardHolder<Model> vh, int position) {
+        StackViewTrace.beginSection("StackViewAdapter.bindCardHolder");
         vh.model = mItems.get(position);
         onBindCardHolder(vh);
+        StackViewTrace.endSection();
     }
 
+    public final void bindCardHolder(StackViewCardHolder<Model> vh, int position, List<Object> payloads) {
+        StackViewTrace.beginSection("StackViewAdapter.bindCardHolder");
+        vh.model = mItems.get(position);
+        onBindCardHolder(vh, payloads);
+        StackViewTrace.endSection();
+    }
+
+    /**
+     * This method is expected to create a holder for the cards of the given view type. Override it
+     * for several view types, it defaults to onCreateCardHolder(context, parent).
+     */
+    public StackViewCardHolder<Model> onCreateCardHolder(Context context, ViewGroup parent, int viewType) {
+        return onCreateCardHolder(context, parent);
+    }
+
+    /**
+     * This method is expected to create a holder for the cards, the one of the single type
+     * adapters. The adapters with several view types also get their default type from it.
+     */
     public abstract StackViewCardHolder<Model> onCreateCardHolder(Context context, ViewGroup parent);
 
     /**
      * This method is expected to populate the view in vh with the model in vh.
      */
     public abstract void onBindCardHolder(StackViewCardHolder<Model> vh);
+
+    /**
+     * This method is expected to update the view in vh for the payloads of notifyDataChange(), the
+     * list is only valid during the call. Defaults to a full bind.
+     */
+    public void onBindCardHolder(StackViewCardHolder<Model> vh, List<Object> payloads) {
+        onBindCardHolder(vh);
+    }
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ public class StackViewCardHolder<Model> {
     private StackViewCard mContainer;
 
     private int mCurrentPosition = -1;
+    private int mItemViewType;
 
     public StackViewCardHolder(View view) {
         itemView = view;
@@ -24,6 +25,17 @@ public class StackViewCardHolder<Model> {
         return mCurrentPosition;
     }
 
+    /**
+     * Returns the view type this holder was created for, see StackViewAdapter.getItemViewType()
+     */
+    public int getItemViewType() {
+        return mItemViewType;
+    }
+
+    void setItemViewType(int viewType) {
+        mItemViewType = viewType;
+    }
+
     public StackViewCard getContainer() {
         return mContainer;
     }
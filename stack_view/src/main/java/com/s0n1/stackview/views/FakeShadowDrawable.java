@@ -16,20 +16,19 @@
 package com.s0n1.stackview.views;
 
 import android.content.res.Resources;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
-import android.graphics.LinearGradient;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
-import android.graphics.RadialGradient;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.graphics.Shader;
 import android.graphics.drawable.Drawable;
 import android.util.Log;
 
 import com.s0n1.stackview.R;
+import com.s0n1.stackview.misc.StackViewConfiguration;
 
 /**
  * A rounded rectangle drawable which also includes a shadow around. This is mostly copied from
@@ -43,6 +42,9 @@ class FakeShadowDrawable extends Drawable {
 
     final static float SHADOW_MULTIPLIER = 1.5f;
 
+    // the stretched part of the nine-patch is kept that far from the corners
+    final static int NINE_PATCH_MARGIN = 2;
+
     final float mInsetShadow; // extra shadow to avoid gaps between card and shadow
 
     Paint mCornerShadowPaint;
@@ -55,6 +57,22 @@ class FakeShadowDrawable extends Drawable {
 
     Path mCornerShadowPath;
 
+    // The shared corner path and shaders, acquired on the first draw and released on detach
+    private ShadowCornerCache.Entry mShadowCorners;
+
+    // see StackViewConfiguration.taskViewShadowMode
+    private int mShadowMode = StackViewConfiguration.ShadowModeGradient;
+
+    Paint mNinePatchPaint;
+
+    private final Rect mNinePatchSrc = new Rect();
+
+    private final Rect mNinePatchDst = new Rect();
+
+    private final int[] mNinePatchDstXs = new int[4];
+
+    private final int[] mNinePatchDstYs = new int[4];
+
     // updated value with inset
     float mMaxShadowSize;
 
@@ -92,12 +110,24 @@ class FakeShadowDrawable extends Drawable {
         mCornerRadius = resources.getDimensionPixelSize(R.dimen.recents_task_view_rounded_corners_radius);
         mCardBounds = new RectF();
         mEdgeShadowPaint = new Paint(mCornerShadowPaint);
+        mNinePatchPaint = new Paint();
+    }
+
+    /**
+     * Sets whether the shadow is drawn with gradients or stretched from a pre-rendered bitmap
+     */
+    void setShadowMode(int shadowMode) {
+        if (mShadowMode != shadowMode) {
+            mShadowMode = shadowMode;
+            mDirty = true;
+        }
     }
 
     @Override
     public void setAlpha(int alpha) {
         mCornerShadowPaint.setAlpha(alpha);
         mEdgeShadowPaint.setAlpha(alpha);
+        mNinePatchPaint.setAlpha(alpha);
     }
 
     @Override
@@ -161,6 +191,7 @@ class FakeShadowDrawable extends Drawable {
     public void setColorFilter(ColorFilter colorFilter) {
         mCornerShadowPaint.setColorFilter(colorFilter);
         mEdgeShadowPaint.setColorFilter(colorFilter);
+        mNinePatchPaint.setColorFilter(colorFilter);
     }
 
     @Override
@@ -174,91 +205,166 @@ class FakeShadowDrawable extends Drawable {
             buildComponents(getBounds());
             mDirty = false;
         }
+        if (mShadowMode == StackViewConfiguration.ShadowModeNinePatch && drawNinePatch(canvas)) {
+            return;
+        }
         canvas.translate(0, mRawShadowSize / 4);
-        drawShadow(canvas);
+        drawShadow(canvas, mCardBounds, mCornerShadowPaint, mEdgeShadowPaint);
         canvas.translate(0, -mRawShadowSize / 4);
     }
 
-    private void drawShadow(Canvas canvas) {
+    private void drawShadow(Canvas canvas, RectF cardBounds, Paint cornerShadowPaint, Paint edgeShadowPaint) {
         final float edgeShadowTop = -mCornerRadius - mShadowSize;
         final float inset = mCornerRadius + mInsetShadow + mRawShadowSize / 2;
-        final boolean drawHorizontalEdges = mCardBounds.width() - 2 * inset > 0;
-        final boolean drawVerticalEdges = mCardBounds.height() - 2 * inset > 0;
+        final boolean drawHorizontalEdges = cardBounds.width() - 2 * inset > 0;
+        final boolean drawVerticalEdges = cardBounds.height() - 2 * inset > 0;
         // LT
         int saved = canvas.save();
-        canvas.translate(mCardBounds.left + inset, mCardBounds.top + inset);
-        canvas.drawPath(mCornerShadowPath, mCornerShadowPaint);
+        canvas.translate(cardBounds.left + inset, cardBounds.top + inset);
+        canvas.drawPath(mCornerShadowPath, cornerShadowPaint);
         if (drawHorizontalEdges) {
             canvas.drawRect(0, edgeShadowTop,
-                    mCardBounds.width() - 2 * inset, -mCornerRadius,
-                    mEdgeShadowPaint);
+                    cardBounds.width() - 2 * inset, -mCornerRadius,
+                    edgeShadowPaint);
         }
         canvas.restoreToCount(saved);
         // RB
         saved = canvas.save();
-        canvas.translate(mCardBounds.right - inset, mCardBounds.bottom - inset);
+        canvas.translate(cardBounds.right - inset, cardBounds.bottom - inset);
         canvas.rotate(180f);
-        canvas.drawPath(mCornerShadowPath, mCornerShadowPaint);
+        canvas.drawPath(mCornerShadowPath, cornerShadowPaint);
         if (drawHorizontalEdges) {
             canvas.drawRect(0, edgeShadowTop,
-                    mCardBounds.width() - 2 * inset, -mCornerRadius + mShadowSize,
-                    mEdgeShadowPaint);
+                    cardBounds.width() - 2 * inset, -mCornerRadius + mShadowSize,
+                    edgeShadowPaint);
         }
         canvas.restoreToCount(saved);
         // LB
         saved = canvas.save();
-        canvas.translate(mCardBounds.left + inset, mCardBounds.bottom - inset);
+        canvas.translate(cardBounds.left + inset, cardBounds.bottom - inset);
         canvas.rotate(270f);
-        canvas.drawPath(mCornerShadowPath, mCornerShadowPaint);
+        canvas.drawPath(mCornerShadowPath, cornerShadowPaint);
         if (drawVerticalEdges) {
             canvas.drawRect(0, edgeShadowTop,
-                    mCardBounds.height() - 2 * inset, -mCornerRadius, mEdgeShadowPaint);
+                    cardBounds.height() - 2 * inset, -mCornerRadius, edgeShadowPaint);
         }
         canvas.restoreToCount(saved);
         // RT
         saved = canvas.save();
-        canvas.translate(mCardBounds.right - inset, mCardBounds.top + inset);
+        canvas.translate(cardBounds.right - inset, cardBounds.top + inset);
         canvas.rotate(90f);
-        canvas.drawPath(mCornerShadowPath, mCornerShadowPaint);
+        canvas.drawPath(mCornerShadowPath, cornerShadowPaint);
         if (drawVerticalEdges) {
             canvas.drawRect(0, edgeShadowTop,
-                    mCardBounds.height() - 2 * inset, -mCornerRadius, mEdgeShadowPaint);
+                    cardBounds.height() - 2 * inset, -mCornerRadius, edgeShadowPaint);
         }
         canvas.restoreToCount(saved);
     }
 
+    /**
+     * Draws the shadow by stretching the middle column and row of the shared nine-patch, returns
+     * false if the card is smaller than the one the nine-patch was rendered for
+     */
+    private boolean drawNinePatch(Canvas canvas) {
+        ShadowCornerCache.Entry corners = mShadowCorners;
+        if (corners.ninePatch == null) {
+            buildNinePatch(corners);
+        }
+        final int[] srcXs = corners.ninePatchXs;
+        final int[] srcYs = corners.ninePatchYs;
+        final int[] dstXs = mNinePatchDstXs;
+        final int[] dstYs = mNinePatchDstYs;
+        final Rect bounds = getBounds();
+        // The outer parts keep their offsets from the edges of the bounds, as in the nine-patch
+        dstXs[0] = bounds.left;
+        dstXs[1] = bounds.left + srcXs[1];
+        dstXs[2] = bounds.right - (srcXs[3] - srcXs[2]);
+        dstXs[3] = bounds.right;
+        dstYs[0] = bounds.top;
+        dstYs[1] = bounds.top + srcYs[1];
+        dstYs[2] = bounds.bottom - (srcYs[3] - srcYs[2]);
+        dstYs[3] = bounds.bottom;
+        if (dstXs[2] < dstXs[1] || dstYs[2] < dstYs[1]) {
+            return false;
+        }
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                if (row == 1 && col == 1) {
+                    // Nothing is drawn under the middle of the card
+                    continue;
+                }
+                mNinePatchSrc.set(srcXs[col], srcYs[row], srcXs[col + 1], srcYs[row + 1]);
+                mNinePatchDst.set(dstXs[col], dstYs[row], dstXs[col + 1], dstYs[row + 1]);
+                canvas.drawBitmap(corners.ninePatch, mNinePatchSrc, mNinePatchDst, mNinePatchPaint);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders the shadow of the smallest card having a column and a row crossed by the edge
+     * shadows only, which are the ones stretched
+     */
+    private void buildNinePatch(ShadowCornerCache.Entry corners) {
+        final float inset = mCornerRadius + mInsetShadow + mRawShadowSize / 2;
+        final float verticalOffset = mMaxShadowSize * SHADOW_MULTIPLIER;
+        final float offsetY = mRawShadowSize / 4;
+        // the bottom edge shadow reaches above the bottom corners when it is larger than them
+        final float bottomEdgeOverlap = Math.max(0, mShadowSize - mCornerRadius);
+        final int stretchRange = 2 * NINE_PATCH_MARGIN + 1;
+        int width = (int) Math.ceil(2 * (mMaxShadowSize + inset) + stretchRange);
+        int height = (int) Math.ceil(2 * (verticalOffset + inset) + bottomEdgeOverlap + stretchRange);
+        RectF cardBounds = new RectF(mMaxShadowSize, verticalOffset,
+                width - mMaxShadowSize, height - verticalOffset);
+
+        // Without the alpha and color filter of this drawable, the bitmap is shared
+        Paint cornerShadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
+        cornerShadowPaint.setShader(corners.cornerShader);
+        Paint edgeShadowPaint = new Paint(cornerShadowPaint);
+        edgeShadowPaint.setShader(corners.edgeShader);
+
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.translate(0, offsetY);
+        drawShadow(canvas, cardBounds, cornerShadowPaint, edgeShadowPaint);
+
+        int stretchX = (int) Math.ceil(mMaxShadowSize + inset) + NINE_PATCH_MARGIN;
+        int stretchY = (int) Math.ceil(verticalOffset + inset + offsetY) + NINE_PATCH_MARGIN;
+        corners.ninePatchXs[0] = 0;
+        corners.ninePatchXs[1] = stretchX;
+        corners.ninePatchXs[2] = stretchX + 1;
+        corners.ninePatchXs[3] = width;
+        corners.ninePatchYs[0] = 0;
+        corners.ninePatchYs[1] = stretchY;
+        corners.ninePatchYs[2] = stretchY + 1;
+        corners.ninePatchYs[3] = height;
+        corners.ninePatch = bitmap;
+    }
+
     private void buildShadowCorners() {
-        RectF innerBounds = new RectF(-mCornerRadius, -mCornerRadius, mCornerRadius, mCornerRadius);
-        RectF outerBounds = new RectF(innerBounds);
-        outerBounds.inset(-mShadowSize, -mShadowSize);
+        // The corners do not depend on the bounds, only rebuild them when their parameters change
+        if (mShadowCorners != null && mShadowCorners.matches(mCornerRadius, mShadowSize,
+                mRawShadowSize, mMaxShadowSize, mShadowStartColor, mShadowEndColor)) {
+            return;
+        }
+        ShadowCornerCache.Entry corners = ShadowCornerCache.acquire(mCornerRadius, mShadowSize,
+                mRawShadowSize, mMaxShadowSize, mShadowStartColor, mShadowEndColor);
+        releaseShadowCorners();
+        mShadowCorners = corners;
+        mCornerShadowPath = corners.cornerShadowPath;
+        mCornerShadowPaint.setShader(corners.cornerShader);
+        mEdgeShadowPaint.setShader(corners.edgeShader);
+    }
 
-        if (mCornerShadowPath == null) {
-            mCornerShadowPath = new Path();
-        } else {
-            mCornerShadowPath.reset();
+    /**
+     * Releases the shared shadow corners, they are acquired again on the next draw
+     */
+    void releaseShadowCorners() {
+        if (mShadowCorners != null) {
+            ShadowCornerCache.release(mShadowCorners);
+            mShadowCorners = null;
+            mDirty = true;
         }
-        mCornerShadowPath.setFillType(Path.FillType.EVEN_ODD);
-        mCornerShadowPath.moveTo(-mCornerRadius, 0);
-        mCornerShadowPath.rLineTo(-mShadowSize, 0);
-        // outer arc
-        mCornerShadowPath.arcTo(outerBounds, 180f, 90f, false);
-        // inner arc
-        mCornerShadowPath.arcTo(innerBounds, 270f, -90f, false);
-        mCornerShadowPath.close();
-
-        float startRatio = mCornerRadius / (mCornerRadius + mShadowSize);
-        mCornerShadowPaint.setShader(new RadialGradient(0, 0, mCornerRadius + mShadowSize,
-                new int[]{mShadowStartColor, mShadowStartColor, mShadowEndColor},
-                new float[]{0f, startRatio, 1f}
-                , Shader.TileMode.CLAMP));
-
-        // we offset the content shadowSize/2 pixels up to make it more realistic.
-        // this is why edge shadow shader has some extra space
-        // When drawing bottom edge shadow, we use that extra space.
-        mEdgeShadowPaint.setShader(new LinearGradient(0, -mCornerRadius + mShadowSize, 0,
-                -mCornerRadius - mShadowSize,
-                new int[]{mShadowStartColor, mShadowStartColor, mShadowEndColor},
-                new float[]{0f, .5f, 1f}, Shader.TileMode.CLAMP));
     }
 
     private void buildComponents(Rect bounds) {
@@ -0,0 +1,126 @@
+package com.s0n1.stackview.views;
+
+import android.graphics.Bitmap;
+import android.graphics.LinearGradient;
+import android.graphics.Path;
+import android.graphics.RadialGradient;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+import java.util.ArrayList;
+
+/*
+ * The corner path and the shaders of the fake shadows, which only depend on the corner radius, the
+ * shadow sizes and the colors, and the nine-patch bitmap of the shadow for the bitmap shadow mode.
+ * They are shared by all the FakeShadowDrawables with the same parameters and counted by
+ * reference, so they are built once instead of per card and per bounds change, and again only when
+ * the sizes in pixels change with the density. The shared objects must not be modified.
+ */
+final class ShadowCornerCache {
+
+    static final class Entry {
+        final float cornerRadius;
+        final float shadowSize;
+        final float rawShadowSize;
+        final float maxShadowSize;
+        final int startColor;
+        final int endColor;
+
+        Path cornerShadowPath;
+        Shader cornerShader;
+        Shader edgeShader;
+
+        // The shadow of the smallest card, built on the main thread by the first drawable drawing
+        // in the bitmap mode, and the bounds of its parts: the middle column and row are stretched
+        Bitmap ninePatch;
+        final int[] ninePatchXs = new int[4];
+        final int[] ninePatchYs = new int[4];
+
+        int refCount;
+
+        Entry(float cornerRadius, float shadowSize, float rawShadowSize, float maxShadowSize,
+              int startColor, int endColor) {
+            this.cornerRadius = cornerRadius;
+            this.shadowSize = shadowSize;
+            this.rawShadowSize = rawShadowSize;
+            this.maxShadowSize = maxShadowSize;
+            this.startColor = startColor;
+            this.endColor = endColor;
+        }
+
+        boolean matches(float cornerRadius, float shadowSize, float rawShadowSize, float maxShadowSize,
+                        int startColor, int endColor) {
+            return this.cornerRadius == cornerRadius && this.shadowSize == shadowSize &&
+                    this.rawShadowSize == rawShadowSize && this.maxShadowSize == maxShadowSize &&
+                    this.startColor == startColor && this.endColor == endColor;
+        }
+    }
+
+    // Only a few sizes are in use at a time, a list is cheaper than hashing the floats
+    private static final ArrayList<Entry> sEntries = new ArrayList<>();
+
+    private ShadowCornerCache() {
+    }
+
+    /**
+     * Returns the entry of the given parameters, building it if it is not in use yet. Each acquire
+     * must be paired with a release.
+     */
+    static synchronized Entry acquire(float cornerRadius, float shadowSize, float rawShadowSize,
+                                      float maxShadowSize, int startColor, int endColor) {
+        for (int i = 0; i < sEntries.size(); i++) {
+            Entry entry = sEntries.get(i);
+            if (entry.matches(cornerRadius, shadowSize, rawShadowSize, maxShadowSize, startColor, endColor)) {
+                entry.refCount++;
+                return entry;
+            }
+        }
+        Entry entry = new Entry(cornerRadius, shadowSize, rawShadowSize, maxShadowSize, startColor, endColor);
+        build(entry);
+        entry.refCount = 1;
+        sEntries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Releases an entry, which is dropped once no drawable uses it
+     */
+    static synchronized void release(Entry entry) {
+        if (--entry.refCount == 0) {
+            sEntries.remove(entry);
+        }
+    }
+
+    private static void build(Entry entry) {
+        float cornerRadius = entry.cornerRadius;
+        float shadowSize = entry.shadowSize;
+        RectF innerBounds = new RectF(-cornerRadius, -cornerRadius, cornerRadius, cornerRadius);
+        RectF outerBounds = new RectF(innerBounds);
+        outerBounds.inset(-shadowSize, -shadowSize);
+
+        Path path = new Path();
+        path.setFillType(Path.FillType.EVEN_ODD);
+        path.moveTo(-cornerRadius, 0);
+        path.rLineTo(-shadowSize, 0);
+        // outer arc
+        path.arcTo(outerBounds, 180f, 90f, false);
+        // inner arc
+        path.arcTo(innerBounds, 270f, -90f, false);
+        path.close();
+        entry.cornerShadowPath = path;
+
+        float startRatio = cornerRadius / (cornerRadius + shadowSize);
+        entry.cornerShader = new RadialGradient(0, 0, cornerRadius + shadowSize,
+                new int[]{entry.startColor, entry.startColor, entry.endColor},
+                new float[]{0f, startRatio, 1f}
+                , Shader.TileMode.CLAMP);
+
+        // we offset the content shadowSize/2 pixels up to make it more realistic.
+        // this is why edge shadow shader has some extra space
+        // When drawing bottom edge shadow, we use that extra space.
+        entry.edgeShader = new LinearGradient(0, -cornerRadius + shadowSize, 0,
+                -cornerRadius - shadowSize,
+                new int[]{entry.startColor, entry.startColor, entry.endColor},
+                new float[]{0f, .5f, 1f}, Shader.TileMode.CLAMP);
+    }
+}
@@ -3,28 +3,43 @@ package com.s0n1.stackview.views;
 import android.animation.ValueAnimator;
 import android.annotation.SuppressLint;
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Rect;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.AttributeSet;
+import android.util.SparseIntArray;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
 
+import com.s0n1.stackview.R;
+import com.s0n1.stackview.core.CardTransformWindow;
+import com.s0n1.stackview.core.IntObjectMap;
+import com.s0n1.stackview.core.IntRect;
+import com.s0n1.stackview.core.ListDiff;
+import com.s0n1.stackview.core.StackViewLayoutAlgorithm;
+import com.s0n1.stackview.core.StackingCurve;
+import com.s0n1.stackview.core.VisibleCardSync;
 import com.s0n1.stackview.misc.StackViewConfiguration;
+import com.s0n1.stackview.misc.StackViewTrace;
 import com.s0n1.stackview.model.StackViewAdapter;
 import com.s0n1.stackview.model.StackViewCardHolder;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /* The visual representation of a task stack view */
 @SuppressLint("ViewConstructor")
-public class StackView<Model> extends FrameLayout implements StackViewAdapter.Callback, StackViewScroller.Callbacks,
-        ObjectPool.ObjectPoolConsumer<StackViewCardHolder<Model>, Integer> {
+public class StackView<Model> extends FrameLayout implements StackViewAdapter.Callback, StackViewScroller.Callbacks {
 
     /**
      * The TaskView callbacks
@@ -35,6 +50,13 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         void onAllCardsDismissed();
     }
 
+    /**
+     * The frame metrics callbacks, see setOnFrameMetricsListener()
+     */
+    public interface OnFrameMetricsListener {
+        void onFrameMetrics(StackViewFrameMetrics metrics);
+    }
+
     StackViewConfiguration mConfig;
 
     StackViewAdapter<Model> mStack;
@@ -42,22 +64,122 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     StackViewScroller mStackScroller;
     StackViewTouchHandler<Model> mTouchHandler;
     OnDismissedListener dismissedListener;
-    ObjectPool<StackViewCardHolder<Model>, Integer> mViewPool;
-    ArrayList<StackViewCardTransform> mCurrentCardTransforms = new ArrayList<>();
-    HashMap<StackViewCard, StackViewCardHolder<Model>> mViewHolderMap = new HashMap<>();
+    OnFrameMetricsListener mFrameMetricsListener;
+    StackViewCardPool<Model> mCardPool;
+    CardTransformWindow mCurrentCardTransforms = new CardTransformWindow();
+    // The holders of the attached cards by position, the cards point back to their holder
+    IntObjectMap<StackViewCardHolder<Model>> mAttachedHolders = new IntObjectMap<>();
 
     Rect mOverviewStackBounds = new Rect();
+    int mLastMeasuredWidth = -1;
+    int mLastMeasuredHeight = -1;
 
     // Optimizations
     int mStackViewsAnimationDuration;
     boolean mStackViewsDirty = true;
     boolean mStackViewsClipDirty = true;
+    boolean mOcclusionClippingEnabled = true;
+    // The attached cards are drawn from hardware layers while the stack moves
+    boolean mCardLayersEnabled = true;
+    boolean mCardLayersActive;
+    // The top corners of the cards in front are not opaque, the cards behind are visible there
+    float mCardCornerRadius;
     boolean mAwaitingFirstLayout = true;
     int[] mTmpVisibleRange = new int[2];
+    List<Object> mTmpPayloads = new ArrayList<>(1);
     Rect mTmpRect = new Rect();
+    Rect mTmpHitRect = new Rect();
+    Rect mTmpStackBounds = new Rect();
+    IntRect mTmpTaskStackBounds = new IntRect();
     StackViewCardTransform mTmpTransform = new StackViewCardTransform();
+    StackViewCardTransform mTmpCurrentTransform = new StackViewCardTransform();
     LayoutInflater mInflater;
 
+    // Frame metrics, only recorded while a listener is set
+    StackViewFrameMetrics mFrameMetrics;
+    int mFrameMetricsSampleInterval = 1;
+    int mFrameMetricsFrameCount;
+    boolean mRecordingFrameMetrics;
+
+    // The idle card holders to create per view type while the main thread is idle
+    SparseIntArray mPendingPrewarmCounts = new SparseIntArray();
+    boolean mPrewarmScheduled;
+    boolean mPrewarming;
+
+    // The holders being created on mCardCreationExecutor per view type, see createDeclaredCardHolders()
+    Executor mCardCreationExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+    SparseIntArray mPendingAsyncCounts = new SparseIntArray();
+    // Bumped when the adapter changes or the view leaves the window, the holders created before are dropped
+    int mCardCreationGeneration;
+
+    // The adapter mutations waiting for the next frame, see scheduleAdapterUpdate()
+    boolean mAdapterUpdatePending;
+    boolean mPendingScrollToFront;
+    boolean mPendingChildReorder;
+    ArrayList<StackViewCardHolder<Model>> mTmpHolders = new ArrayList<>();
+    Runnable mAdapterUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            applyPendingAdapterUpdates();
+        }
+    };
+
+    MessageQueue.IdleHandler mPrewarmIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrewarmScheduled = prewarmNextCard();
+            return mPrewarmScheduled;
+        }
+    };
+
+    // Invalidates on the next frame before postInvalidateOnAnimation() is available
+    Handler mMainHandler = new Handler(Looper.getMainLooper());
+    Runnable mInvalidateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+        }
+    };
+
+    // The card updates of synchronizeStackViewsWithModel(), the bookkeeping is in VisibleCardSync
+    VisibleCardSync.Callbacks<StackViewCardHolder<Model>> mSyncCallbacks =
+            new VisibleCardSync.Callbacks<StackViewCardHolder<Model>>() {
+                @Override
+                public void returnCard(StackViewCardHolder<Model> vh) {
+                    StackViewTrace.beginSection("StackViewCardPool.returnCardHolder");
+                    mCardPool.returnCardHolder(StackView.this, vh);
+                    StackViewTrace.endSection();
+                }
+
+                @Override
+                public StackViewCardHolder<Model> pickUpCard(int position) {
+                    StackViewTrace.beginSection("StackViewCardPool.pickUpCardHolder");
+                    StackViewCardHolder<Model> vh = mCardPool.pickUpCardHolder(StackView.this,
+                            mStack.getItemViewType(position), position);
+                    StackViewTrace.endSection();
+                    return vh;
+                }
+
+                @Override
+                public void onCardVisible(int position, StackViewCardHolder<Model> vh, boolean pickedUp) {
+                    StackViewCardTransform transform = mCurrentCardTransforms.get(position, mTmpCurrentTransform);
+                    if (pickedUp && mStackViewsAnimationDuration > 0) {
+                        // For items in the list, put them in start animating them from the
+                        // approriate ends of the list where they are expected to appear
+                        if (Float.compare(transform.p, 0f) <= 0) {
+                            mLayoutAlgorithm.getStackTransform(0f, 0f, mTmpTransform, null);
+                        } else {
+                            mLayoutAlgorithm.getStackTransform(1f, 0f, mTmpTransform, null);
+                        }
+                        vh.getContainer().updateViewPropertiesToCardTransform(mTmpTransform);
+                    }
+
+                    // Animate the card into place
+                    vh.getContainer().updateViewPropertiesToCardTransform(transform,
+                            mStackViewsAnimationDuration, mRequestUpdateClippingListener);
+                }
+            };
+
     ValueAnimator.AnimatorUpdateListener mRequestUpdateClippingListener =
             new ValueAnimator.AnimatorUpdateListener() {
                 @Override
@@ -66,6 +188,15 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
                 }
             };
 
+    // Sorts the holders by position
+    static final Comparator<StackViewCardHolder<?>> CardPositionComparator =
+            new Comparator<StackViewCardHolder<?>>() {
+                @Override
+                public int compare(StackViewCardHolder<?> lhs, StackViewCardHolder<?> rhs) {
+                    return lhs.getPosition() < rhs.getPosition() ? -1 : (lhs.getPosition() == rhs.getPosition() ? 0 : 1);
+                }
+            };
+
     public StackView(Context context) {
         this(context, null);
     }
@@ -77,7 +208,8 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     public StackView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         mConfig = new StackViewConfiguration(context);
-        mViewPool = new ObjectPool<>(context, this);
+        mCardCornerRadius = getResources().getDimensionPixelSize(R.dimen.recents_task_view_rounded_corners_radius);
+        mCardPool = new StackViewCardPool<>();
         mInflater = LayoutInflater.from(context);
         mLayoutAlgorithm = new StackViewLayoutAlgorithm(mConfig);
         mStackScroller = new StackViewScroller(context, mConfig, mLayoutAlgorithm);
@@ -88,6 +220,87 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     public void setAdapter(StackViewAdapter<Model> adapter) {
         mStack = adapter;
         mStack.setCallbacks(this);
+        mCardCreationGeneration++;
+        mPendingAsyncCounts.clear();
+        schedulePrewarm();
+        createDeclaredCardHolders();
+    }
+
+    /**
+     * Sets the executor creating the card holders off the main thread, see
+     * StackViewAdapter.canCreateCardHolderOffMainThread()
+     */
+    public void setCardCreationExecutor(Executor executor) {
+        mCardCreationExecutor = executor;
+    }
+
+    /**
+     * Creates the holders declared by the adapter, off the main thread where the adapter allows it
+     * and while the main thread is idle otherwise. A card bound before its holder is ready still
+     * creates one synchronously.
+     */
+    void createDeclaredCardHolders() {
+        SparseIntArray counts = new SparseIntArray();
+        mStack.onDeclareCardHolders(counts);
+        for (int i = 0; i < counts.size(); i++) {
+            int viewType = counts.keyAt(i);
+            int count = counts.valueAt(i);
+            if (!mStack.canCreateCardHolderOffMainThread(viewType)) {
+                prewarmCards(viewType, count);
+                continue;
+            }
+            int missing = count - mCardPool.getRecycledCardCount(viewType) - mPendingAsyncCounts.get(viewType);
+            for (int j = 0; j < missing; j++) {
+                try {
+                    mCardCreationExecutor.execute(newCardCreationTask(mStack, viewType));
+                    mPendingAsyncCounts.put(viewType, mPendingAsyncCounts.get(viewType) + 1);
+                } catch (RejectedExecutionException e) {
+                    prewarmCards(viewType, count);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a task creating a holder on the calling thread, then handing it to the pool on the
+     * main thread unless the adapter changed or the view left the window meanwhile. A failed
+     * creation is thrown on the main thread, like the other adapter errors.
+     */
+    private Runnable newCardCreationTask(final StackViewAdapter<Model> adapter, final int viewType) {
+        final Context context = getContext();
+        final StackViewConfiguration config = mConfig;
+        final int generation = mCardCreationGeneration;
+        return new Runnable() {
+            @Override
+            public void run() {
+                StackViewCardHolder<Model> holder = null;
+                RuntimeException error = null;
+                try {
+                    holder = adapter.createCardHolder(context, config, viewType);
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+                final StackViewCardHolder<Model> vh = holder;
+                final RuntimeException creationError = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mCardCreationGeneration) {
+                            mPendingAsyncCounts.put(viewType, mPendingAsyncCounts.get(viewType) - 1);
+                        }
+                        if (creationError != null) {
+                            throw creationError;
+                        }
+                        if (generation != mCardCreationGeneration) {
+                            return;
+                        }
+                        vh.getContainer().setHolder(vh);
+                        mCardPool.addNewCardHolder(viewType, vh);
+                    }
+                });
+            }
+        };
     }
 
     /**
@@ -98,7 +311,222 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     }
 
     /**
-     * Requests that the views be synchronized with the model
+     * Sets a listener receiving the metrics of one frame out of every sampleInterval frames, or
+     * null to stop recording them. Nothing is recorded while there is no listener.
+     */
+    public void setOnFrameMetricsListener(OnFrameMetricsListener l, int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("sampleInterval must be positive");
+        }
+        if (l != null && mFrameMetrics == null) {
+            mFrameMetrics = new StackViewFrameMetrics();
+        }
+        if (mFrameMetrics != null) {
+            mFrameMetrics.reset();
+        }
+        mFrameMetricsListener = l;
+        mFrameMetricsSampleInterval = sampleInterval;
+        mFrameMetricsFrameCount = 0;
+        mRecordingFrameMetrics = l != null;
+    }
+
+    /**
+     * Reports the metrics of the frame if it was sampled, and decides whether to record the next one
+     */
+    private void dispatchFrameMetrics() {
+        if (mRecordingFrameMetrics) {
+            mFrameMetrics.mItemCount = mStack != null ? mStack.getNumberOfItems() : 0;
+            mFrameMetricsListener.onFrameMetrics(mFrameMetrics);
+            mFrameMetrics.reset();
+        }
+        mFrameMetricsFrameCount++;
+        mRecordingFrameMetrics = mFrameMetricsListener != null &&
+                mFrameMetricsFrameCount % mFrameMetricsSampleInterval == 0;
+    }
+
+    /**
+     * Binds the holder, recording the bind in the frame metrics
+     */
+    private void bindCardHolder(StackViewCardHolder<Model> vh, int position) {
+        bindCardHolder(vh, position, null);
+    }
+
+    private void bindCardHolder(StackViewCardHolder<Model> vh, int position, List<Object> payloads) {
+        boolean recording = mRecordingFrameMetrics;
+        long start = recording ? System.nanoTime() : 0;
+        if (payloads == null) {
+            mStack.bindCardHolder(vh, position);
+        } else {
+            mStack.bindCardHolder(vh, position, payloads);
+        }
+        if (mCardLayersActive) {
+            // Drop the layer of a card rebound while the stack moves
+            vh.getContainer().mContentChanged = true;
+            updateCardLayer(vh.getContainer());
+        }
+        if (recording) {
+            mFrameMetrics.mBindDurationNs += System.nanoTime() - start;
+            mFrameMetrics.mBindCount++;
+        }
+    }
+
+    /**
+     * Shares the pool of detached cards with other StackViews showing the same kind of cards. Must
+     * be called before any card is attached, e.g. before setAdapter().
+     */
+    public void setCardPool(StackViewCardPool<Model> pool) {
+        if (mAttachedHolders.size() > 0) {
+            throw new IllegalStateException("The card pool must be set before any card is attached");
+        }
+        mCardPool = pool;
+    }
+
+    /**
+     * Returns the pool of detached cards, which can be shared with setCardPool()
+     */
+    public StackViewCardPool<Model> getCardPool() {
+        return mCardPool;
+    }
+
+    /**
+     * Sets the max number of detached cards kept for recycling for the given view type, see
+     * StackViewAdapter.getItemViewType()
+     */
+    public void setMaxRecycledCards(int viewType, int max) {
+        mCardPool.setMaxRecycledCards(viewType, max);
+    }
+
+    /**
+     * Creates card holders of the given view type while the main thread is idle, until count of
+     * them are waiting in the pool. Nothing is created while the stack is scrolling.
+     */
+    public void prewarmCards(int viewType, int count) {
+        mPendingPrewarmCounts.put(viewType, Math.max(count, mPendingPrewarmCounts.get(viewType)));
+        schedulePrewarm();
+    }
+
+    /**
+     * Creates card holders of the given view type right away, until count of them are waiting in
+     * the pool. Meant to be called before the first layout, e.g. right after setAdapter().
+     */
+    public void prewarmCardsNow(int viewType, int count) {
+        if (mStack == null) {
+            throw new IllegalStateException("The adapter must be set before prewarming cards");
+        }
+        mPrewarming = true;
+        mCardPool.prewarm(this, viewType, count);
+        mPrewarming = false;
+    }
+
+    private void schedulePrewarm() {
+        if (!mPrewarmScheduled && mPendingPrewarmCounts.size() > 0 && mStack != null) {
+            Looper.myQueue().addIdleHandler(mPrewarmIdleHandler);
+            mPrewarmScheduled = true;
+        }
+    }
+
+    /**
+     * Creates at most one pending card holder, a single inflation per idle keeps the next frame on
+     * time if input arrives meanwhile.
+     *
+     * @return whether holders are still pending
+     */
+    boolean prewarmNextCard() {
+        if (mStack == null) {
+            return false;
+        }
+        if (isScrollInFlight()) {
+            // Wait for the next idle, the scroll would pay for the inflation
+            return true;
+        }
+        while (mPendingPrewarmCounts.size() > 0) {
+            int viewType = mPendingPrewarmCounts.keyAt(0);
+            int count = mPendingPrewarmCounts.valueAt(0);
+            mPrewarming = true;
+            int created = mCardPool.prewarm(this, viewType,
+                    Math.min(count, mCardPool.getRecycledCardCount(viewType) + 1));
+            mPrewarming = false;
+            if (created > 0) {
+                return true;
+            }
+            mPendingPrewarmCounts.removeAt(0);
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the stack is being dragged, flung or animated
+     */
+    boolean isScrollInFlight() {
+        return mTouchHandler.isScrolling() || mStackScroller.isScrollInFlight();
+    }
+
+    /**
+     * Sets the curve the cards are stacked along, e.g. a flatter one on tablets
+     */
+    public void setStackingCurve(StackingCurve curve) {
+        mLayoutAlgorithm.setStackingCurve(curve);
+        if (mStack != null) {
+            updateMinMaxScroll(true);
+        }
+        requestSynchronizeStackViewsWithModel();
+    }
+
+    /**
+     * Sets whether the parts of the cards covered by the cards in front of them are not drawn,
+     * enabled by default. Only the cards declared opaque by StackViewAdapter.isCardOpaque() cover
+     * the others.
+     */
+    public void setOcclusionClippingEnabled(boolean enabled) {
+        mOcclusionClippingEnabled = enabled;
+        requestUpdateStackViewsClip();
+    }
+
+    /**
+     * Sets whether the cards are drawn from hardware layers while the stack is dragged, flung or
+     * animated, enabled by default. See StackViewAdapter.canCacheCardInLayer().
+     */
+    public void setCardLayersEnabled(boolean enabled) {
+        mCardLayersEnabled = enabled;
+        updateCardLayers();
+    }
+
+    /**
+     * Promotes the attached cards to hardware layers when the stack starts moving and demotes them
+     * once it settles, the moving cards then only translate and scale their layers.
+     */
+    void updateCardLayers() {
+        boolean active = mCardLayersEnabled && isScrollInFlight();
+        if (active == mCardLayersActive) {
+            return;
+        }
+        mCardLayersActive = active;
+        for (int j = 0; j < mAttachedHolders.size(); j++) {
+            StackViewCard tv = mAttachedHolders.valueAt(j).getContainer();
+            if (!active) {
+                tv.mContentChanged = false;
+            }
+            updateCardLayer(tv);
+        }
+    }
+
+    /**
+     * Gives the card a hardware layer if it is swiped, or if the stack moves and its content does
+     * not change meanwhile, since a layer would then be redrawn on top of the content
+     */
+    void updateCardLayer(StackViewCard tv) {
+        StackViewCardHolder<Model> vh = getCardHolder(tv);
+        boolean layer = isHardwareAccelerated() && (tv.mSwiping ||
+                (mCardLayersActive && !tv.mContentChanged && mStack.canCacheCardInLayer(vh)));
+        int layerType = layer ? LAYER_TYPE_HARDWARE : LAYER_TYPE_NONE;
+        if (tv.getLayerType() != layerType) {
+            tv.setLayerType(layerType, null);
+        }
+    }
+
+    /**
+     * Requests that the views be synchronized with the model. This only schedules a new frame, the
+     * transforms are recomputed in {@link #computeScroll()} without a measure/layout pass.
      */
     void requestSynchronizeStackViewsWithModel() {
         requestSynchronizeStackViewsWithModel(0);
@@ -115,7 +543,6 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         } else {
             mStackViewsAnimationDuration = Math.max(mStackViewsAnimationDuration, duration);
         }
-        requestLayout();
     }
 
     /**
@@ -129,128 +556,82 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     }
 
     public StackViewCard getChildViewForIndex(int index) {
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; i++) {
-            StackViewCard tv = (StackViewCard) getChildAt(i);
-            StackViewCardHolder<Model> holder = mViewHolderMap.get(tv);
-            if (holder != null && holder.getPosition() == index) {
-                return tv;
+        StackViewCardHolder<Model> holder = mAttachedHolders.get(index);
+        return holder != null ? holder.getContainer() : null;
+    }
+
+    /**
+     * Returns the holder of a card of this stack
+     */
+    @SuppressWarnings("unchecked")
+    StackViewCardHolder<Model> getCardHolder(StackViewCard tv) {
+        return tv != null ? (StackViewCardHolder<Model>) tv.getHolder() : null;
+    }
+
+    /**
+     * Returns the child index to attach the card at the given position at, the children are kept
+     * sorted by position.
+     */
+    private int findChildInsertIndex(int position) {
+        int low = 0;
+        int high = getChildCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            StackViewCardHolder<Model> holder = getCardHolder((StackViewCard) getChildAt(mid));
+            if (holder != null && position < holder.getPosition()) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
         }
-        return null;
+        return low < getChildCount() ? low : -1;
     }
 
-    private boolean updateStackTransforms(ArrayList<StackViewCardTransform> cardTransforms,
-                                          int itemCount,
+    private boolean updateStackTransforms(CardTransformWindow cardTransforms,
                                           float stackScroll,
                                           int[] visibleRangeOut) {
-        // XXX: We should be intelligent about where to look for the visible stack range using the
-        //      current stack scroll.
-        // XXX: We should log extra cases like the ones below where we don't expect to hit very often
-        // XXX: Print out approximately how many indices we have to go through to find the first visible transform
-
-        int transformCount = cardTransforms.size();
-        int frontMostVisibleIndex = -1;
-        int backMostVisibleIndex = -1;
-
-        // We can reuse the card transforms where possible to reduce object allocation
-        if (transformCount < itemCount) {
-            // If there are less transforms than cards, then add as many transforms as necessary
-            for (int i = transformCount; i < itemCount; i++) {
-                cardTransforms.add(new StackViewCardTransform());
-            }
-        } else if (transformCount > itemCount) {
-            // If there are more transforms than cards, then just subset the transform list
-            cardTransforms.subList(0, itemCount);
-        }
-
-        // Update the stack transforms
-        StackViewCardTransform prevTransform = null;
-        for (int i = itemCount - 1; i >= 0; i--) {
+        StackViewTrace.beginSection("StackView.updateStackTransforms");
+        boolean recording = mRecordingFrameMetrics;
+        long start = recording ? System.nanoTime() : 0;
 
-            // 这里将空的 OverviewCardTransform 丢进去
-            StackViewCardTransform transform = mLayoutAlgorithm.getStackTransform(i,
-                    stackScroll, cardTransforms.get(i), prevTransform);
-            if (transform.visible) {
-                if (frontMostVisibleIndex < 0) {
-                    frontMostVisibleIndex = i;
-                }
-                backMostVisibleIndex = i;
-            } else {
-                if (backMostVisibleIndex != -1) {
-                    // We've reached the end of the visible range, so going down the rest of the
-                    // stack, we can just reset the transforms accordingly
-                    while (i >= 0) {
-                        cardTransforms.get(i).reset();
-                        i--;
-                    }
-                    break;
-                }
-            }
+        // Only the visible cards are transformed, see CardTransformWindow
+        boolean isValidVisibleRange = cardTransforms.update(mLayoutAlgorithm, stackScroll);
+        cardTransforms.getVisibleRange(visibleRangeOut);
+        StackViewTrace.endSection();
 
-            prevTransform = transform;
+        if (recording) {
+            mFrameMetrics.mTransformDurationNs += System.nanoTime() - start;
         }
-        if (visibleRangeOut != null) {
-            visibleRangeOut[0] = frontMostVisibleIndex;
-            visibleRangeOut[1] = backMostVisibleIndex;
-        }
-        return frontMostVisibleIndex != -1;
+        return isValidVisibleRange;
     }
 
     /**
      * Synchronizes the views with the model
      */
     void synchronizeStackViewsWithModel() {
+        applyPendingAdapterUpdates();
         if (mStackViewsDirty) {
+            StackViewTrace.beginSection("StackView.synchronizeStackViewsWithModel");
+            boolean recording = mRecordingFrameMetrics;
+            long start = recording ? System.nanoTime() : 0;
 
             float stackScroll = mStackScroller.getStackScroll();
             int[] visibleRange = mTmpVisibleRange;
-            boolean isValidVisibleRange = updateStackTransforms(mCurrentCardTransforms, mStack.getNumberOfItems(),
-                    stackScroll, visibleRange);
-
-            ArrayList<Map.Entry<StackViewCard, StackViewCardHolder<Model>>> entrySet = new ArrayList<>(mViewHolderMap.entrySet());
+            boolean isValidVisibleRange = updateStackTransforms(mCurrentCardTransforms, stackScroll,
+                    visibleRange);
 
-            Map<Integer, StackViewCardHolder<Model>> reusedMap = new HashMap<>();
-
-            for (Map.Entry<StackViewCard, StackViewCardHolder<Model>> entry : entrySet) {
-                int position = entry.getValue().getPosition();
-                if (visibleRange[1] <= position && position <= visibleRange[0]) {
-                    StackViewCardHolder<Model> vh = entry.getValue();
-                    reusedMap.put(position, vh);
-                } else {
-                    mViewPool.returnObjectToPool(entry.getValue());
-                }
-            }
-
-            // Pick up all the newly visible children and update all the existing children
-            for (int i = visibleRange[0]; isValidVisibleRange && i >= visibleRange[1]; i--) {
-                StackViewCardTransform transform = mCurrentCardTransforms.get(i);
-
-                StackViewCardHolder<Model> vh = reusedMap.get(i);
-                if (vh == null) {
-                    vh = mViewPool.pickUpObjectFromPool(i, i);
-
-                    if (mStackViewsAnimationDuration > 0) {
-                        // For items in the list, put them in start animating them from the
-                        // approriate ends of the list where they are expected to appear
-                        if (Float.compare(transform.p, 0f) <= 0) {
-                            mLayoutAlgorithm.getStackTransform(0f, 0f, mTmpTransform, null);
-                        } else {
-                            mLayoutAlgorithm.getStackTransform(1f, 0f, mTmpTransform, null);
-                        }
-                        vh.getContainer().updateViewPropertiesToCardTransform(mTmpTransform);
-                    }
-                }
-
-                // Animate the card into place
-                vh.getContainer().updateViewPropertiesToCardTransform(mCurrentCardTransforms.get(i),
-                        mStackViewsAnimationDuration, mRequestUpdateClippingListener);
-            }
+            VisibleCardSync.synchronize(mAttachedHolders, visibleRange, isValidVisibleRange, mSyncCallbacks);
 
             // Reset the request-synchronize params
             mStackViewsAnimationDuration = 0;
             mStackViewsDirty = false;
             mStackViewsClipDirty = true;
+
+            if (recording) {
+                mFrameMetrics.mSyncDurationNs += System.nanoTime() - start;
+                mFrameMetrics.mVisibleCardCount = isValidVisibleRange ? visibleRange[0] - visibleRange[1] + 1 : 0;
+            }
+            StackViewTrace.endSection();
         }
     }
 
@@ -266,7 +647,7 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
 
         float targetScroll;
         if (position == maxPosition) {
-            targetScroll = mLayoutAlgorithm.mMaxScrollP;
+            targetScroll = mLayoutAlgorithm.getMaxScrollP();
         } else {
             targetScroll = mLayoutAlgorithm.getStackScrollForTask(position) - 0.5f;
         }
@@ -275,10 +656,67 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
     }
 
     /**
-     * Updates the clip for each of the task views.
+     * Updates the clip for each of the task views: a card is only drawn down to the top of the
+     * content of the nearest card in front covering it, and not at all if that card covers it
+     * whole. The geometry is read from the views rather than from the transforms, so that the
+     * animating and swiped cards are clipped where they are drawn.
      */
     void clipTaskViews() {
         mStackViewsClipDirty = false;
+        int childCount = getChildCount();
+        // The content of the nearest card in front which can cover the others, if any
+        boolean hasOccluder = false;
+        float occluderLeft = 0;
+        float occluderTop = 0;
+        float occluderRight = 0;
+        float occluderBottom = 0;
+        // The children are sorted by position, the front most card is the last one
+        for (int i = childCount - 1; i >= 0; i--) {
+            StackViewCard tv = (StackViewCard) getChildAt(i);
+            float scale = tv.getScaleX();
+            float left = tv.getLeft() + tv.getTranslationX() + tv.getPivotX() * (1f - scale);
+            float top = tv.getTop() + tv.getTranslationY() + tv.getPivotY() * (1f - scale);
+            float contentLeft = left + tv.getPaddingLeft() * scale;
+            float contentTop = top + tv.getPaddingTop() * scale;
+            float contentRight = left + (tv.getWidth() - tv.getPaddingRight()) * scale;
+            float contentBottom = top + (tv.getHeight() - tv.getPaddingBottom()) * scale;
+
+            tv.mClipBottom = StackViewCard.NoClip;
+            tv.mOccluded = false;
+            if (hasOccluder && occluderLeft <= contentLeft && contentRight <= occluderRight &&
+                    contentBottom <= occluderBottom) {
+                tv.mClipBottom = occluderTop;
+                tv.mOccluded = occluderTop <= top;
+            }
+
+            // The card has no background of its own, only the adapter knows whether it hides the others
+            if (mOcclusionClippingEnabled && tv.getVisibility() == View.VISIBLE &&
+                    Float.compare(tv.getAlpha(), 1f) == 0 && Float.compare(tv.getTranslationX(), 0f) == 0 &&
+                    mStack != null && mStack.isCardOpaque(getCardHolder(tv))) {
+                hasOccluder = true;
+                occluderLeft = contentLeft;
+                occluderTop = contentTop + mCardCornerRadius * scale;
+                occluderRight = contentRight;
+                occluderBottom = contentBottom - mCardCornerRadius * scale;
+            }
+        }
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        StackViewCard tv = (StackViewCard) child;
+        if (tv.mOccluded) {
+            // Covered by the card in front
+            return false;
+        }
+        if (tv.mClipBottom == StackViewCard.NoClip) {
+            return super.drawChild(canvas, child, drawingTime);
+        }
+        int saveCount = canvas.save();
+        canvas.clipRect(0, 0, getWidth(), tv.mClipBottom);
+        boolean more = super.drawChild(canvas, child, drawingTime);
+        canvas.restoreToCount(saveCount);
+        return more;
     }
 
     /**
@@ -307,6 +745,30 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         }
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mStack != null) {
+            // Ask again for the holders dropped while detached
+            createDeclaredCardHolders();
+        }
+        schedulePrewarm();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mPrewarmScheduled) {
+            Looper.myQueue().removeIdleHandler(mPrewarmIdleHandler);
+            mPrewarmScheduled = false;
+        }
+        // The holders still being created would only be added to a pool which may outlive this view
+        mCardCreationGeneration++;
+        mPendingAsyncCounts.clear();
+        // The detached cards still hold this view and its attach info, and their shadows
+        mCardPool.removeCardHolders(this);
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         return mTouchHandler.onInterceptTouchEvent(ev);
@@ -320,10 +782,19 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
 
     @Override
     public void computeScroll() {
+        StackViewTrace.beginSection("StackView.computeScroll");
         mStackScroller.computeScroll();
         // Synchronize the views
         synchronizeStackViewsWithModel();
         clipTaskViews();
+        // Demote the cards once a fling ends
+        updateCardLayers();
+
+        StackViewTrace.endSection();
+
+        if (mFrameMetricsListener != null) {
+            dispatchFrameMetrics();
+        }
     }
 
     /**
@@ -331,7 +802,9 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
      */
     void computeRects(int windowWidth, int windowHeight, Rect taskStackBounds) {
         // Compute the rects in the stack algorithm
-        mLayoutAlgorithm.computeRects(windowWidth, windowHeight, taskStackBounds);
+        mTmpTaskStackBounds.set(taskStackBounds.left, taskStackBounds.top, taskStackBounds.right,
+                taskStackBounds.bottom);
+        mLayoutAlgorithm.computeRects(windowWidth, windowHeight, mTmpTaskStackBounds);
 
         // Update the scroll bounds
         updateMinMaxScroll(false);
@@ -343,19 +816,23 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
      */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        boolean recording = mRecordingFrameMetrics;
+        long start = recording ? System.nanoTime() : 0;
+
         int width = MeasureSpec.getSize(widthMeasureSpec);
         int height = MeasureSpec.getSize(heightMeasureSpec);
-        @SuppressLint("DrawAllocation")
-        Rect stackBounds = new Rect();
-        mConfig.getOverviewStackBounds(width, height, stackBounds);
-        setStackInsetRect(stackBounds);
+        mConfig.getOverviewStackBounds(width, height, mTmpStackBounds);
 
         //空间大部分的初始化都在这里
 
-        // Compute our stack/task rects
-        @SuppressLint("DrawAllocation")
-        Rect taskStackBounds = new Rect(mOverviewStackBounds);
-        computeRects(width, height, taskStackBounds);
+        // Compute our stack/task rects, only when the bounds have actually changed
+        if (width != mLastMeasuredWidth || height != mLastMeasuredHeight ||
+                !mTmpStackBounds.equals(mOverviewStackBounds)) {
+            setStackInsetRect(mTmpStackBounds);
+            computeRects(width, height, mOverviewStackBounds);
+            mLastMeasuredWidth = width;
+            mLastMeasuredHeight = height;
+        }
 
         // If this is the first layout, then scroll to the front of the stack and synchronize the
         // stack views immediately to load all the views
@@ -366,6 +843,7 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         }
 
         // Measure each of the TaskViews
+        IntRect taskRect = mLayoutAlgorithm.getTaskRect();
         int childCount = getChildCount();
         for (int i = 0; i < childCount; i++) {
             StackViewCard tv = (StackViewCard) getChildAt(i);
@@ -376,13 +854,17 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
             }
             tv.measure(
                     MeasureSpec.makeMeasureSpec(
-                            mLayoutAlgorithm.mTaskRect.width() + mTmpRect.left + mTmpRect.right,
+                            taskRect.width() + mTmpRect.left + mTmpRect.right,
                             MeasureSpec.EXACTLY),
                     MeasureSpec.makeMeasureSpec(
-                            mLayoutAlgorithm.mTaskRect.height() + mTmpRect.top + mTmpRect.bottom, MeasureSpec.EXACTLY));
+                            taskRect.height() + mTmpRect.top + mTmpRect.bottom, MeasureSpec.EXACTLY));
         }
 
         setMeasuredDimension(width, height);
+
+        if (recording) {
+            mFrameMetrics.mMeasureDurationNs += System.nanoTime() - start;
+        }
     }
 
     /**
@@ -392,7 +874,11 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
      */
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        boolean recording = mRecordingFrameMetrics;
+        long start = recording ? System.nanoTime() : 0;
+
         // Layout each of the children
+        IntRect taskRect = mLayoutAlgorithm.getTaskRect();
         int childCount = getChildCount();
         for (int i = 0; i < childCount; i++) {
             StackViewCard tv = (StackViewCard) getChildAt(i);
@@ -401,10 +887,10 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
             } else {
                 mTmpRect.setEmpty();
             }
-            tv.layout(mLayoutAlgorithm.mTaskRect.left - mTmpRect.left,
-                    mLayoutAlgorithm.mTaskRect.top - mTmpRect.top,
-                    mLayoutAlgorithm.mTaskRect.right + mTmpRect.right,
-                    mLayoutAlgorithm.mTaskRect.bottom + mTmpRect.bottom);
+            tv.layout(taskRect.left - mTmpRect.left,
+                    taskRect.top - mTmpRect.top,
+                    taskRect.right + mTmpRect.right,
+                    taskRect.bottom + mTmpRect.bottom);
         }
 
         if (mAwaitingFirstLayout) {
@@ -416,72 +902,116 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
             float scroll = mStackScroller.getStackScroll();// record StackScroll
             mStackScroller.setStackScrollToInitialState();// init StackScroll
             // check if out of scroll bounds
-            scroll = Math.max(Math.min(scroll, mLayoutAlgorithm.mMaxScrollP), mLayoutAlgorithm.mMinScrollP);
+            scroll = Math.max(Math.min(scroll, mLayoutAlgorithm.getMaxScrollP()), mLayoutAlgorithm.getMinScrollP());
             // animate scroll for refreshing view states
             mStackScroller.animateScroll(scroll, scroll);
         }
+
+        if (recording) {
+            mFrameMetrics.mLayoutDurationNs += System.nanoTime() - start;
+        }
     }
 
     /**
      * Handler for the first layout.
      */
     void onFirstLayout() {
-        for (Map.Entry<StackViewCard, StackViewCardHolder<Model>> entry : mViewHolderMap.entrySet()) {
-            entry.getKey().prepareEnterRecentsAnimation();
+        for (int i = 0; i < mAttachedHolders.size(); i++) {
+            mAttachedHolders.valueAt(i).getContainer().prepareEnterRecentsAnimation();
         }
     }
 
     public boolean isTransformedTouchPointInView(float x, float y, View child) {
-        final Rect frame = new Rect();
+        final Rect frame = mTmpHitRect;
         child.getHitRect(frame);
         return frame.contains((int) x, (int) y);
     }
 
     @Override
     public void onCardChange(int position) {
-        StackViewCard tv = getChildViewForIndex(position);
-        StackViewCardHolder<Model> holder = mViewHolderMap.get(tv);
+        StackViewCardHolder<Model> holder = mAttachedHolders.get(position);
         if (holder != null) {
-            mStack.bindCardHolder(holder, position);
-            requestSynchronizeStackViewsWithModel();
+            if (holder.getItemViewType() == mStack.getItemViewType(position)) {
+                // The geometry of the card is unchanged, so there is no need to sync
+                bindCardHolder(holder, position);
+            } else {
+                // The card changed its type, let the next sync pick up a holder of the new type
+                mCardPool.returnCardHolder(this, holder);
+                requestSynchronizeStackViewsWithModel();
+            }
         }
     }
 
-    public void onCardAdded() {
-        // Update the min/max scroll
-        updateMinMaxScroll(false);
+    @Override
+    public void onCardPayloadChange(int position, Object payload) {
+        // Offscreen cards get a full bind when they are picked up again
+        StackViewCardHolder<Model> holder = mAttachedHolders.get(position);
+        if (holder != null) {
+            mTmpPayloads.add(payload);
+            bindCardHolder(holder, position, mTmpPayloads);
+            mTmpPayloads.clear();
+        }
+    }
 
-        requestSynchronizeStackViewsWithModel();
-        animateScrollTo(mStack.getNumberOfItems() - 1);
+    public void onCardAdded() {
+        onCardRangeInserted(mStack.getNumberOfItems() - 1, 1);
     }
 
     public void onCardRemoved(int position) {
-        // Remove the view associated with this task, we can't rely on updateTransforms
-        // to work here because the task is no longer in the list
-        StackViewCard tv = getChildViewForIndex(position);
-        StackViewCardHolder<Model> holder = mViewHolderMap.get(tv);
-
         // Notify the callback that we've removed the task and it can clean up after it
         dismissedListener.onCardDismissed(position);
+        onCardRangeRemoved(position, 1);
+    }
+
+    @Override
+    public void onCardRangeInserted(int positionStart, int itemCount) {
+        // Shift the cards behind the inserted ones
+        mAttachedHolders.offsetKeys(positionStart, itemCount);
+        for (int j = mAttachedHolders.size() - 1; j >= 0; j--) {
+            int newPosition = mAttachedHolders.keyAt(j);
+            if (newPosition >= positionStart + itemCount) {
+                StackViewCardHolder<Model> vh = mAttachedHolders.valueAt(j);
+                vh.setPosition(newPosition);
+                bindCardHolder(vh, newPosition);
+            }
+        }
+        if (positionStart + itemCount == mStack.getNumberOfItems()) {
+            // Scroll to the new cards in front once the mutations of this frame are applied
+            mPendingScrollToFront = true;
+        }
+        scheduleAdapterUpdate();
+    }
 
-        if (tv != null && holder != null) {
-            holder.setPosition(-1);
-            mViewPool.returnObjectToPool(holder);
+    @Override
+    public void onCardRangeRemoved(int positionStart, int itemCount) {
+        // Remove the views associated with these tasks, we can't rely on updateTransforms
+        // to work here because the tasks are no longer in the list
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            StackViewCardHolder<Model> holder = mAttachedHolders.remove(position);
+            if (holder != null) {
+                holder.setPosition(-1);
+                mCardPool.returnCardHolder(this, holder);
+            }
         }
 
-        for (StackViewCardHolder<Model> vh : mViewHolderMap.values()) {
-            if (vh.getPosition() > position) {
-                int newPosition = vh.getPosition() - 1;
+        // Shift the cards behind them, backwards since returning removes them
+        mAttachedHolders.offsetKeys(positionStart + itemCount, -itemCount);
+        for (int j = mAttachedHolders.size() - 1; j >= 0; j--) {
+            int newPosition = mAttachedHolders.keyAt(j);
+            if (newPosition >= positionStart) {
+                StackViewCardHolder<Model> vh = mAttachedHolders.valueAt(j);
                 vh.setPosition(newPosition);
-                mStack.bindCardHolder(vh, newPosition);
+                if (vh.getItemViewType() == mStack.getItemViewType(newPosition)) {
+                    bindCardHolder(vh, newPosition);
+                } else {
+                    // Let the next sync pick up a holder of the new type
+                    mCardPool.returnCardHolder(this, vh);
+                }
             }
         }
 
         // Update the min/max scroll and animate other task views into their new positions
-        updateMinMaxScroll(true);
-
-        // Animate all the tasks into place
-        requestSynchronizeStackViewsWithModel(200);
+        scheduleAdapterUpdate();
 
         // If there are no remaining tasks, then either unfilter the current stack, or just close
         // the activity if there are no filtered stacks
@@ -490,52 +1020,202 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         }
     }
 
+    @Override
+    public void onCardMoved(int fromPosition, int toPosition) {
+        mAttachedHolders.moveKey(fromPosition, toPosition);
+        // Rebind the cards which changed their position
+        int low = Math.min(fromPosition, toPosition);
+        int high = Math.max(fromPosition, toPosition);
+        for (int j = mAttachedHolders.size() - 1; j >= 0; j--) {
+            int newPosition = mAttachedHolders.keyAt(j);
+            if (low <= newPosition && newPosition <= high) {
+                StackViewCardHolder<Model> vh = mAttachedHolders.valueAt(j);
+                vh.setPosition(newPosition);
+                bindCardHolder(vh, newPosition);
+            }
+        }
+        mPendingChildReorder = true;
+        scheduleAdapterUpdate();
+    }
+
+    @Override
+    public void onCardsUpdated(ListDiff.Result diff) {
+        // Replay the script on the attached cards, keyed by position: the cards of the removed
+        // items are returned, the others follow their items
+        boolean moved = false;
+        for (int i = 0; i < diff.getOperationCount(); i++) {
+            int position = diff.getOperationPosition(i);
+            int itemCount = diff.getOperationItemCount(i);
+            switch (diff.getOperationType(i)) {
+                case ListDiff.OpRemove:
+                    for (int p = position; p < position + itemCount; p++) {
+                        StackViewCardHolder<Model> vh = mAttachedHolders.remove(p);
+                        if (vh != null) {
+                            vh.setPosition(-1);
+                            mCardPool.returnCardHolder(this, vh);
+                        }
+                    }
+                    mAttachedHolders.offsetKeys(position + itemCount, -itemCount);
+                    break;
+                case ListDiff.OpInsert:
+                    mAttachedHolders.offsetKeys(position, itemCount);
+                    break;
+                case ListDiff.OpMove:
+                    mAttachedHolders.moveKey(position, diff.getOperationToPosition(i));
+                    moved = true;
+                    break;
+                default:
+                    // The changes come last, they are bound below
+                    break;
+            }
+        }
+
+        // Return the cards which changed their type, and only bind the changed ones again,
+        // backwards since returning removes them
+        for (int j = mAttachedHolders.size() - 1; j >= 0; j--) {
+            StackViewCardHolder<Model> vh = mAttachedHolders.valueAt(j);
+            int newPosition = mAttachedHolders.keyAt(j);
+            vh.setPosition(newPosition);
+            if (vh.getItemViewType() != mStack.getItemViewType(newPosition)) {
+                // Let the next sync pick up a holder of the new type
+                mCardPool.returnCardHolder(this, vh);
+            } else if (diff.isContentChanged(newPosition)) {
+                bindCardHolder(vh, newPosition);
+            } else {
+                // The same content, from the new list
+                vh.model = mStack.getData().get(newPosition);
+            }
+        }
+        if (moved) {
+            mPendingChildReorder = true;
+        }
+
+        // Animate all the cards into place in one pass
+        scheduleAdapterUpdate();
+
+        // Like the removals, emptying the list dismisses the stack
+        if (mStack.getNumberOfItems() == 0 && diff.getOldListSize() > 0) {
+            dismissedListener.onAllCardsDismissed();
+        }
+    }
+
+    /**
+     * Reattaches the attached cards sorted by position, see findChildInsertIndex()
+     */
+    private void attachChildrenInPositionOrder() {
+        ArrayList<StackViewCardHolder<Model>> holders = mTmpHolders;
+        for (int j = 0; j < mAttachedHolders.size(); j++) {
+            holders.add(mAttachedHolders.valueAt(j));
+        }
+        Collections.sort(holders, CardPositionComparator);
+        detachAllViewsFromParent();
+        for (int j = 0; j < holders.size(); j++) {
+            StackViewCard container = holders.get(j).getContainer();
+            attachViewToParent(container, -1, container.getLayoutParams());
+        }
+        holders.clear();
+        invalidate();
+    }
+
+    /**
+     * Coalesces the adapter mutations made until the next frame into a single scroll bounds update
+     * and a single animated sync
+     */
+    private void scheduleAdapterUpdate() {
+        if (mAdapterUpdatePending) {
+            return;
+        }
+        mAdapterUpdatePending = true;
+        if (Build.VERSION.SDK_INT >= 16) {
+            postOnAnimation(mAdapterUpdateRunnable);
+        } else {
+            mMainHandler.post(mAdapterUpdateRunnable);
+        }
+    }
+
+    /**
+     * Applies the pending adapter mutations, the sync must not see the stale scroll bounds
+     */
+    void applyPendingAdapterUpdates() {
+        if (!mAdapterUpdatePending) {
+            return;
+        }
+        mAdapterUpdatePending = false;
+        if (mPendingChildReorder) {
+            // Once for all the moves of the frame
+            mPendingChildReorder = false;
+            attachChildrenInPositionOrder();
+        }
+        if (mPendingScrollToFront) {
+            mPendingScrollToFront = false;
+            updateMinMaxScroll(false);
+            requestSynchronizeStackViewsWithModel();
+            animateScrollTo(mStack.getNumberOfItems() - 1);
+        } else {
+            updateMinMaxScroll(true);
+            requestSynchronizeStackViewsWithModel(200);
+        }
+    }
+
     void onCardDismissed(StackViewCard tv) {
-        StackViewCardHolder<Model> vh = mViewHolderMap.get(tv);
+        StackViewCardHolder<Model> vh = getCardHolder(tv);
         if (vh != null) {
             int taskIndex = vh.getPosition();
             mStack.notifyDataRemoved(taskIndex);
         }
     }
 
-    @Override
-    public StackViewCardHolder<Model> createObject(Context context) {
-        return mStack.createCardHolder(context, mConfig);
+    /**** StackViewCardPool callbacks ****/
+
+    StackViewCardHolder<Model> createObject(int type) {
+        // Prewarmed holders are created outside of the frames
+        boolean recording = mRecordingFrameMetrics && !mPrewarming;
+        long start = recording ? System.nanoTime() : 0;
+        StackViewCardHolder<Model> vh = mStack.createCardHolder(getContext(), mConfig, type);
+        vh.getContainer().setHolder(vh);
+        if (recording) {
+            mFrameMetrics.mCreateDurationNs += System.nanoTime() - start;
+        }
+        return vh;
     }
 
-    @Override
-    public void prepareObjectToEnterPool(StackViewCardHolder<Model> vh) {
+    void prepareObjectToEnterPool(StackViewCardHolder<Model> vh) {
 
-        mViewHolderMap.remove(vh.getContainer());
+        int position = vh.getPosition();
+        if (mAttachedHolders.get(position) == vh) {
+            mAttachedHolders.remove(position);
+        }
         // Detach the view from the hierarchy
         detachViewFromParent(vh.getContainer());
 
         // Reset the view properties
-        vh.getContainer().resetViewProperties();
+        StackViewCard container = vh.getContainer();
+        container.resetViewProperties();
+        container.mSwiping = false;
+        container.mContentChanged = false;
+        if (container.getLayerType() != LAYER_TYPE_NONE) {
+            container.setLayerType(LAYER_TYPE_NONE, null);
+        }
+
+        if (mRecordingFrameMetrics) {
+            mFrameMetrics.mDetachCount++;
+        }
     }
 
-    @Override
-    public void prepareObjectToLeavePool(StackViewCardHolder<Model> vh, Integer position, boolean isNewView) {
+    void prepareObjectToLeavePool(StackViewCardHolder<Model> vh, int position, boolean isNewView,
+                                  boolean isPoolHit) {
         // Rebind the task and request that this task's data be filled into the TaskView
 
-        mViewHolderMap.put(vh.getContainer(), vh);
+        mAttachedHolders.put(position, vh);
         vh.setPosition(position);
-        mStack.bindCardHolder(vh, position);
+        bindCardHolder(vh, position);
         StackViewCard container = vh.getContainer();
+        container.mStackView = this;
 
         // Find the index where this task should be placed in the stack
         int insertIndex = -1;
-        int taskIndex = position;
-        if (taskIndex != -1) {
-            int childCount = getChildCount();
-            for (int i = 0; i < childCount; i++) {
-                StackViewCard insertTV = (StackViewCard) getChildAt(i);
-                StackViewCardHolder<Model> holder = mViewHolderMap.get(insertTV);
-                if (holder != null && taskIndex < holder.getPosition()) {
-                    insertIndex = i;
-                    break;
-                }
-            }
+        if (position != -1) {
+            insertIndex = findChildInsertIndex(position);
         }
 
         // Add/attach the view to the hierarchy
@@ -547,11 +1227,27 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         } else {
             attachViewToParent(container, insertIndex, container.getLayoutParams());
         }
+
+        // The card was just bound, its content is not changing
+        container.mContentChanged = false;
+        updateCardLayer(container);
+
+        if (mRecordingFrameMetrics) {
+            if (isPoolHit) {
+                mFrameMetrics.mPoolHitCount++;
+            } else {
+                mFrameMetrics.mPoolMissCount++;
+            }
+            mFrameMetrics.mAttachCount++;
+        }
     }
 
-    @Override
-    public boolean hasPreferredData(StackViewCardHolder<Model> vh, Integer preferredData) {
-        return (vh.getPosition() == preferredData);
+    void discardObject(StackViewCardHolder<?> vh, boolean isNewObject) {
+        if (!isNewObject) {
+            // The container was detached when entering the pool, finish removing it
+            removeDetachedView(vh.getContainer(), false);
+        }
+        vh.getContainer().mStackView = null;
     }
 
     /**** TaskStackViewScroller.TaskStackViewScrollerCallbacks ****/
@@ -565,12 +1261,7 @@ public class StackView<Model> extends FrameLayout implements StackViewAdapter.Ca
         if (Build.VERSION.SDK_INT >= 16) {
             postInvalidateOnAnimation();
         } else {
-            new Handler(Looper.getMainLooper()).post(new Runnable() {
-                @Override
-                public void run() {
-                    invalidate();
-                }
-            });
+            mMainHandler.post(mInvalidateRunnable);
         }
     }
 }
@@ -4,26 +4,47 @@ import android.animation.ObjectAnimator;
 import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.Outline;
 import android.graphics.Rect;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewOutlineProvider;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 
+import com.s0n1.stackview.R;
 import com.s0n1.stackview.misc.StackViewConfiguration;
+import com.s0n1.stackview.model.StackViewCardHolder;
 
 /* A task view */
 public class StackViewCard extends FrameLayout {
 
+    static final float NoClip = Float.MAX_VALUE;
+
     StackViewConfiguration mConfig;
 
     float mTaskProgress;
     ObjectAnimator mTaskProgressAnimator;
     LinearLayout mContentContainer;
     View mContent;
+    // The holder this card belongs to, set once by the StackView creating it
+    StackViewCardHolder<?> mHolder;
+    // The StackView this card is attached to, or was last detached from
+    StackView<?> mStackView;
+
+    Rect mTmpContentRect = new Rect();
+
+    // The bottom of the part left visible by the cards in front, in the StackView coordinates, and
+    // whether nothing is left, see StackView.clipTaskViews()
+    float mClipBottom = NoClip;
+    boolean mOccluded;
+
+    // The layer state, see StackView.updateCardLayer()
+    boolean mSwiping;
+    boolean mContentChanged;
 
     // Optimizations
     ValueAnimator.AnimatorUpdateListener mUpdateDimListener =
@@ -51,7 +72,13 @@ public class StackViewCard extends FrameLayout {
     public StackViewCard(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
 
-        setBackground(new FakeShadowDrawable(context.getResources()));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            // The RenderThread draws the shadow of the outline from the translationZ of the transform
+            setOutlineProvider(new CardOutlineProvider(context.getResources().getDimensionPixelSize(
+                    R.dimen.recents_task_view_rounded_corners_radius)));
+        } else {
+            setBackground(new FakeShadowDrawable(context.getResources()));
+        }
         mContentContainer = new LinearLayout(context);
         mContentContainer.setOrientation(LinearLayout.VERTICAL);
         LayoutParams params = new LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
@@ -60,10 +87,25 @@ public class StackViewCard extends FrameLayout {
         addView(mContentContainer);
     }
 
+    /* The rounded rect of the card, casting the native shadow */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    static class CardOutlineProvider extends ViewOutlineProvider {
+        final int mCornerRadius;
+
+        CardOutlineProvider(int cornerRadius) {
+            mCornerRadius = cornerRadius;
+        }
+
+        @Override
+        public void getOutline(View view, Outline outline) {
+            outline.setRoundRect(0, 0, view.getWidth(), view.getHeight(), mCornerRadius);
+        }
+    }
+
     //将子view的宽高设置入此父view
     @Override
     public void getHitRect(Rect outRect) {
-        Rect contentRect = new Rect();
+        Rect contentRect = mTmpContentRect;
         mContent.getHitRect(contentRect);
         super.getHitRect(outRect);
         outRect.left += contentRect.left;
@@ -72,8 +114,22 @@ public class StackViewCard extends FrameLayout {
         outRect.bottom = outRect.top + contentRect.height();
     }
 
+    /**
+     * Returns the holder this card belongs to
+     */
+    public StackViewCardHolder<?> getHolder() {
+        return mHolder;
+    }
+
+    void setHolder(StackViewCardHolder<?> holder) {
+        mHolder = holder;
+    }
+
     public void setConfig(StackViewConfiguration config) {
         mConfig = config;
+        if (getBackground() instanceof FakeShadowDrawable) {
+            ((FakeShadowDrawable) getBackground()).setShadowMode(config.taskViewShadowMode);
+        }
     }
 
     public void setContent(View content) {
@@ -101,6 +157,15 @@ public class StackViewCard extends FrameLayout {
         setMeasuredDimension(width, height);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        // Let the shadow corners shared with the other cards go once none of them is shown
+        if (getBackground() instanceof FakeShadowDrawable) {
+            ((FakeShadowDrawable) getBackground()).releaseShadowCorners();
+        }
+    }
+
     /**
      * Synchronizes this view's properties with the task's transform
      */
@@ -125,6 +190,10 @@ public class StackViewCard extends FrameLayout {
             mTaskProgressAnimator = ObjectAnimator.ofFloat(this, "taskProgress", toTransform.p);
             mTaskProgressAnimator.setDuration(duration);
             mTaskProgressAnimator.addUpdateListener(mUpdateDimListener);
+            if (updateCallback != null && Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+                // ViewPropertyAnimator has no update listener yet, the progress animates along
+                mTaskProgressAnimator.addUpdateListener(updateCallback);
+            }
             mTaskProgressAnimator.start();
         }
     }
@@ -0,0 +1,139 @@
+package com.s0n1.stackview.views;
+
+import com.s0n1.stackview.core.ObjectPool;
+import com.s0n1.stackview.model.StackViewCardHolder;
+
+/*
+ * A pool of detached cards, kept apart by view type, which several StackViews showing the same
+ * kind of cards can share, see StackView.setCardPool(). A card picked up by another StackView than
+ * the one it was detached from is removed from the old one first, then added as a new view.
+ */
+public class StackViewCardPool<Model> {
+
+    private ObjectPool<StackViewCardHolder<Model>> mPool;
+    // The StackView the pool is currently picking up, returning or creating cards for
+    private StackView<Model> mCurrentStack;
+    // Whether the card being picked up was created for the pick up, rather than taken from the pool
+    private boolean mCreatedForPickUp;
+
+    private ObjectPool.ObjectPoolConsumer<StackViewCardHolder<Model>> mConsumer =
+            new ObjectPool.ObjectPoolConsumer<StackViewCardHolder<Model>>() {
+                @Override
+                public StackViewCardHolder<Model> createObject(int type) {
+                    mCreatedForPickUp = true;
+                    return mCurrentStack.createObject(type);
+                }
+
+                @Override
+                public int getObjectType(StackViewCardHolder<Model> vh) {
+                    return vh.getItemViewType();
+                }
+
+                @Override
+                public int getPreferredKey(StackViewCardHolder<Model> vh) {
+                    return vh.getPosition();
+                }
+
+                @Override
+                public void prepareObjectToEnterPool(StackViewCardHolder<Model> vh) {
+                    mCurrentStack.prepareObjectToEnterPool(vh);
+                }
+
+                @Override
+                public void prepareObjectToLeavePool(StackViewCardHolder<Model> vh, int position,
+                                                     boolean isNewObject) {
+                    StackView<?> owner = vh.getContainer().mStackView;
+                    if (!isNewObject && owner != mCurrentStack) {
+                        // Finish removing the card from its previous StackView before moving it
+                        owner.discardObject(vh, false);
+                        isNewObject = true;
+                    }
+                    // The prewarmed, asynchronously created and moved cards are pool hits too
+                    mCurrentStack.prepareObjectToLeavePool(vh, position, isNewObject, !mCreatedForPickUp);
+                }
+
+                @Override
+                public void discardObject(StackViewCardHolder<Model> vh, boolean isNewObject) {
+                    StackView<?> owner = vh.getContainer().mStackView;
+                    if (owner != null) {
+                        owner.discardObject(vh, isNewObject);
+                    }
+                }
+            };
+
+    /**
+     * Creates a pool keeping at most ObjectPool.DefaultMaxPoolSize detached cards per view type
+     */
+    public StackViewCardPool() {
+        mPool = new ObjectPool<>(mConsumer);
+    }
+
+    /**
+     * Sets the max number of detached cards kept for the view types without a max of their own
+     */
+    public void setDefaultMaxRecycledCards(int max) {
+        mPool.setDefaultMaxPoolSize(max);
+    }
+
+    /**
+     * Sets the max number of detached cards kept for the given view type
+     */
+    public void setMaxRecycledCards(int viewType, int max) {
+        mPool.setMaxPoolSize(viewType, max);
+    }
+
+    /**
+     * Returns the number of detached cards of the given view type
+     */
+    public int getRecycledCardCount(int viewType) {
+        return mPool.getPoolSize(viewType);
+    }
+
+    /**
+     * Removes all the detached cards
+     */
+    public void clear() {
+        mPool.clear();
+    }
+
+    /**
+     * Removes the detached cards of the given StackView, so that a StackView leaving the window is
+     * not kept alive by the pool it shares
+     */
+    int removeCardHolders(final StackView<Model> sv) {
+        return mPool.evictObjects(new ObjectPool.ObjectFilter<StackViewCardHolder<Model>>() {
+            @Override
+            public boolean accept(StackViewCardHolder<Model> vh) {
+                return vh.getContainer().mStackView == sv;
+            }
+        });
+    }
+
+    StackViewCardHolder<Model> pickUpCardHolder(StackView<Model> sv, int viewType, int position) {
+        StackView<Model> previousStack = mCurrentStack;
+        mCurrentStack = sv;
+        mCreatedForPickUp = false;
+        StackViewCardHolder<Model> vh = mPool.pickUpObjectFromPool(viewType, position, position);
+        mCurrentStack = previousStack;
+        return vh;
+    }
+
+    void returnCardHolder(StackView<Model> sv, StackViewCardHolder<Model> vh) {
+        StackView<Model> previousStack = mCurrentStack;
+        mCurrentStack = sv;
+        mPool.returnObjectToPool(vh);
+        mCurrentStack = previousStack;
+    }
+
+    int prewarm(StackView<Model> sv, int viewType, int count) {
+        StackView<Model> previousStack = mCurrentStack;
+        mCurrentStack = sv;
+        int created = mPool.prewarm(viewType, count);
+        mCurrentStack = previousStack;
+        return created;
+    }
+
+    boolean addNewCardHolder(int viewType, StackViewCardHolder<Model> vh) {
+        return mPool.addNewObject(viewType, vh);
+    }
+}
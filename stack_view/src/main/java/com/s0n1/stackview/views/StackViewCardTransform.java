@@ -2,42 +2,21 @@ package com.s0n1.stackview.views;
 
 import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
-import android.graphics.Rect;
 import android.os.Build;
 import android.view.View;
 import android.view.ViewPropertyAnimator;
 import android.view.animation.Interpolator;
 
+import com.s0n1.stackview.core.CardTransform;
+
 
 /* The transform state for a task view */
-class StackViewCardTransform {
-    public int startDelay = 0;
-    public int translationY = 0;
-    public float translationZ = 0;
-    public float scale = 1f;
-    public float alpha = 1f;
-    public boolean visible = false;
-    public Rect rect = new Rect();
-    float p = 0f;
+class StackViewCardTransform extends CardTransform {
 
     public StackViewCardTransform() {
         // Do nothing
     }
 
-    /**
-     * Resets the current transform
-     */
-    public void reset() {
-        startDelay = 0;
-        translationY = 0;
-        translationZ = 0;
-        scale = 1f;
-        alpha = 1f;
-        visible = false;
-        rect.setEmpty();
-        p = 0f;
-    }
-
     /**
      * Convenience functions to compare against current property values
      */
@@ -58,9 +37,10 @@ class StackViewCardTransform {
     }
 
     /**
-     * Applies this transform to a view.
+     * Applies this transform to a view. The update callback is called on every frame of the
+     * animation from API 19, see StackViewCard for the older versions.
      */
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public void applyToTaskView(View v, int duration, Interpolator interp, boolean allowLayers,
                                 boolean allowShadows, ValueAnimator.AnimatorUpdateListener updateCallback) {
         // Check to see if any properties have changed, and update the task view
@@ -72,6 +52,10 @@ class StackViewCardTransform {
             if (hasTranslationYChangedFrom(v.getTranslationY())) {
                 anim.translationY(translationY);
             }
+            if (allowShadows && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP &&
+                    hasTranslationZChangedFrom(v.getTranslationZ())) {
+                anim.translationZ(translationZ);
+            }
             if (hasScaleChangedFrom(v.getScaleX())) {
                 anim.scaleX(scale)
                         .scaleY(scale);
@@ -85,6 +69,11 @@ class StackViewCardTransform {
             if (requiresLayers && allowLayers) {
                 anim.withLayer();
             }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                // Called every frame, e.g. to clip the cards behind, the animator of the view is
+                // reused so a null callback clears the previous one
+                anim.setUpdateListener(updateCallback);
+            }
             anim.setStartDelay(startDelay)
                     .setDuration(duration)
                     .setInterpolator(interp)
@@ -94,6 +83,11 @@ class StackViewCardTransform {
             if (hasTranslationYChangedFrom(v.getTranslationY())) {
                 v.setTranslationY(translationY);
             }
+            if (allowShadows && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP &&
+                    hasTranslationZChangedFrom(v.getTranslationZ())) {
+                // The RenderThread draws the shadow from the elevation
+                v.setTranslationZ(translationZ);
+            }
             if (hasScaleChangedFrom(v.getScaleX())) {
                 v.setScaleX(scale);
                 v.setScaleY(scale);
@@ -107,18 +101,15 @@ class StackViewCardTransform {
     /**
      * Reset the transform on a view.
      */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public static void reset(View v) {
         v.setTranslationX(0f);
         v.setTranslationY(0f);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            v.setTranslationZ(0f);
+        }
         v.setScaleX(1f);
         v.setScaleY(1f);
         v.setAlpha(1f);
     }
-
-    @Override
-    public String toString() {
-        return "TaskViewTransform delay: " + startDelay + " y: " + translationY + " z: " + translationZ +
-                " scale: " + scale + " alpha: " + alpha + " visible: " + visible + " rect: " + rect +
-                " p: " + p;
-    }
 }
@@ -0,0 +1,120 @@
+package com.s0n1.stackview.views;
+
+/**
+ * The work a StackView did for one frame, see StackView.setOnFrameMetricsListener(). The same
+ * instance is reported for every frame, so copy the values out to keep them.
+ * <p>
+ * Durations are in nanoseconds and summed over the frame. The sync duration includes the
+ * transform, create and bind durations of the cards it picked up.
+ */
+public class StackViewFrameMetrics {
+
+    long mSyncDurationNs;
+    long mTransformDurationNs;
+    long mBindDurationNs;
+    long mCreateDurationNs;
+    long mMeasureDurationNs;
+    long mLayoutDurationNs;
+
+    int mItemCount;
+    int mVisibleCardCount;
+    int mPoolHitCount;
+    int mPoolMissCount;
+    int mAttachCount;
+    int mDetachCount;
+    int mBindCount;
+
+    StackViewFrameMetrics() {
+        // Do nothing
+    }
+
+    /**
+     * Resets the metrics for the next frame
+     */
+    void reset() {
+        mSyncDurationNs = 0;
+        mTransformDurationNs = 0;
+        mBindDurationNs = 0;
+        mCreateDurationNs = 0;
+        mMeasureDurationNs = 0;
+        mLayoutDurationNs = 0;
+        mItemCount = 0;
+        mVisibleCardCount = 0;
+        mPoolHitCount = 0;
+        mPoolMissCount = 0;
+        mAttachCount = 0;
+        mDetachCount = 0;
+        mBindCount = 0;
+    }
+
+    public long getSyncDurationNs() {
+        return mSyncDurationNs;
+    }
+
+    public long getTransformDurationNs() {
+        return mTransformDurationNs;
+    }
+
+    public long getBindDurationNs() {
+        return mBindDurationNs;
+    }
+
+    public long getCreateDurationNs() {
+        return mCreateDurationNs;
+    }
+
+    public long getMeasureDurationNs() {
+        return mMeasureDurationNs;
+    }
+
+    public long getLayoutDurationNs() {
+        return mLayoutDurationNs;
+    }
+
+    /**
+     * Returns the number of cards in the stack
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    public int getVisibleCardCount() {
+        return mVisibleCardCount;
+    }
+
+    /**
+     * Returns the number of cards picked up from the pool without creating a new one
+     */
+    public int getPoolHitCount() {
+        return mPoolHitCount;
+    }
+
+    /**
+     * Returns the number of cards that had to be created because the pool was empty
+     */
+    public int getPoolMissCount() {
+        return mPoolMissCount;
+    }
+
+    public int getAttachCount() {
+        return mAttachCount;
+    }
+
+    public int getDetachCount() {
+        return mDetachCount;
+    }
+
+    public int getBindCount() {
+        return mBindCount;
+    }
+
+    @Override
+    public String toString() {
+        return "StackViewFrameMetrics sync: " + mSyncDurationNs + " transform: " + mTransformDurationNs +
+                " bind: " + mBindDurationNs + " create: " + mCreateDurationNs + " measure: " +
+                mMeasureDurationNs + " layout: " + mLayoutDurationNs + " items: " + mItemCount +
+                " visible: " + mVisibleCardCount + " poolHits: " + mPoolHitCount + " poolMisses: " +
+                mPoolMissCount + " attaches: " + mAttachCount + " detaches: " + mDetachCount +
+                " binds: " + mBindCount;
+    }
+}
@@ -7,7 +7,9 @@ import android.animation.ValueAnimator;
 import android.content.Context;
 import android.widget.OverScroller;
 
+import com.s0n1.stackview.core.StackViewLayoutAlgorithm;
 import com.s0n1.stackview.misc.StackViewConfiguration;
+import com.s0n1.stackview.misc.StackViewTrace;
 
 /* The scrolling logic for a TaskStackView */
 class StackViewScroller {
@@ -21,8 +23,11 @@ class StackViewScroller {
 
     private float mStackScrollP;
 
+    private static final String FlingTraceSection = "StackViewScroller.fling";
+
     OverScroller mScroller;
     ObjectAnimator mScrollAnimator;
+    boolean mFlinging;
 
     StackViewScroller(Context context, StackViewConfiguration config, StackViewLayoutAlgorithm layoutAlgorithm) {
         mConfig = config;
@@ -66,7 +71,7 @@ class StackViewScroller {
      * Sets the current stack scroll to the initial state when you first enter recents
      */
     void setStackScrollToInitialState() {
-        setStackScroll(getBoundedStackScroll(mLayoutAlgorithm.mInitialScrollP));
+        setStackScroll(getBoundedStackScroll(mLayoutAlgorithm.getInitialScrollP()));
     }
 
     /**
@@ -84,17 +89,17 @@ class StackViewScroller {
      * Returns the bounded stack scroll
      */
     private float getBoundedStackScroll(float scroll) {
-        return Math.max(mLayoutAlgorithm.mMinScrollP, Math.min(mLayoutAlgorithm.mMaxScrollP, scroll));
+        return Math.max(mLayoutAlgorithm.getMinScrollP(), Math.min(mLayoutAlgorithm.getMaxScrollP(), scroll));
     }
 
     /**
      * Returns the amount that the aboslute value of how much the scroll is out of bounds.
      */
     float getScrollAmountOutOfBounds(float scroll) {
-        if (scroll < mLayoutAlgorithm.mMinScrollP) {
-            return Math.abs(scroll - mLayoutAlgorithm.mMinScrollP);
-        } else if (scroll > mLayoutAlgorithm.mMaxScrollP) {
-            return Math.abs(scroll - mLayoutAlgorithm.mMaxScrollP);
+        if (scroll < mLayoutAlgorithm.getMinScrollP()) {
+            return Math.abs(scroll - mLayoutAlgorithm.getMinScrollP());
+        } else if (scroll > mLayoutAlgorithm.getMaxScrollP()) {
+            return Math.abs(scroll - mLayoutAlgorithm.getMaxScrollP());
         }
         return 0f;
     }
@@ -157,11 +162,21 @@ class StackViewScroller {
     /**** OverScroller ****/
 
     int progressToScrollRange(float p) {
-        return (int) (p * mLayoutAlgorithm.mStackVisibleRect.height());
+        return (int) (p * mLayoutAlgorithm.getStackVisibleRect().height());
     }
 
     private float scrollRangeToProgress(int s) {
-        return (float) s / mLayoutAlgorithm.mStackVisibleRect.height();
+        return (float) s / mLayoutAlgorithm.getStackVisibleRect().height();
+    }
+
+    /**
+     * Flings the stack scroll, the positions are in scroll range, see progressToScrollRange()
+     */
+    void fling(int startY, int velocityY, int minY, int maxY, int overY) {
+        stopScroller();
+        mScroller.fling(0, startY, 0, velocityY, 0, 0, minY, maxY, 0, overY);
+        mFlinging = true;
+        StackViewTrace.beginAsyncSection(FlingTraceSection, System.identityHashCode(this));
     }
 
     /**
@@ -174,9 +189,16 @@ class StackViewScroller {
             if (mCb != null) {
                 mCb.onScrollChanged(scroll);
             }
+        } else if (mFlinging) {
+            onFlingEnded();
         }
     }
 
+    private void onFlingEnded() {
+        mFlinging = false;
+        StackViewTrace.endAsyncSection(FlingTraceSection, System.identityHashCode(this));
+    }
+
     /**
      * Returns whether the overscroller is scrolling.
      */
@@ -184,6 +206,13 @@ class StackViewScroller {
         return !mScroller.isFinished();
     }
 
+    /**
+     * Returns whether a fling or a scroll animation is running.
+     */
+    boolean isScrollInFlight() {
+        return isScrolling() || (mScrollAnimator != null && mScrollAnimator.isRunning());
+    }
+
     /**
      * Stops the scroller and any current fling.
      */
@@ -191,5 +220,8 @@ class StackViewScroller {
         if (!mScroller.isFinished()) {
             mScroller.abortAnimation();
         }
+        if (mFlinging) {
+            onFlingEnded();
+        }
     }
 }
\ No newline at end of file
@@ -51,6 +51,13 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
         mSwipeHelper = new SwipeHelper(SwipeHelper.X, this, densityScale, mPagingTouchSlop, mConfig);
     }
 
+    /**
+     * Returns whether the user is dragging the stack
+     */
+    boolean isScrolling() {
+        return mIsScrolling;
+    }
+
     /**
      * Velocity tracker helpers
      */
@@ -168,6 +175,7 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
                 mIsScrolling = false;
                 mActivePointerId = INACTIVE_POINTER_ID;
                 recycleVelocityTracker();
+                mSv.updateCardLayers();
                 break;
             }
         }
@@ -272,12 +280,11 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
                             Math.abs((float) velocity / mMaximumVelocity)) *
                             TaskStackOverscrollRange);
                     // Fling scroll
-                    mScroller.mScroller.fling(0, mScroller.progressToScrollRange(mScroller.getStackScroll()),
-                            0, velocity,
-                            0, 0,
-                            mScroller.progressToScrollRange(mSv.mLayoutAlgorithm.mMinScrollP),
-                            mScroller.progressToScrollRange(mSv.mLayoutAlgorithm.mMaxScrollP),
-                            0, overscrollRange);
+                    mScroller.fling(mScroller.progressToScrollRange(mScroller.getStackScroll()),
+                            velocity,
+                            mScroller.progressToScrollRange(mSv.mLayoutAlgorithm.getMinScrollP()),
+                            mScroller.progressToScrollRange(mSv.mLayoutAlgorithm.getMaxScrollP()),
+                            overscrollRange);
                     // Invalidate to kick off computeScroll
                     mSv.invalidate();
                 } else if (mScroller.isScrollOutOfBounds()) {
@@ -288,6 +295,8 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
                 mActivePointerId = INACTIVE_POINTER_ID;
                 mIsScrolling = false;
                 recycleVelocityTracker();
+                // Keep the layers while flinging, drop them if the stack stopped
+                mSv.updateCardLayers();
                 break;
             }
             case MotionEvent.ACTION_POINTER_UP: {
@@ -311,6 +320,8 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
                 mActivePointerId = INACTIVE_POINTER_ID;
                 mIsScrolling = false;
                 recycleVelocityTracker();
+                // Keep the layers while flinging, drop them if the stack stopped
+                mSv.updateCardLayers();
                 break;
             }
         }
@@ -334,6 +345,9 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
         StackViewCard tv = (StackViewCard) v;
         // Disallow touch events from this task view
         tv.setTouchEnabled(false);
+        // Translate and fade the card from a layer until it is dismissed or snapped back
+        tv.mSwiping = true;
+        mSv.updateCardLayer(tv);
         // Disallow parents from intercepting touch events
         final ViewParent parent = mSv.getParent();
         if (parent != null) {
@@ -343,7 +357,8 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
 
     @Override
     public void onSwipeChanged(View v, float delta) {
-        // Do nothing
+        // A swiped card no longer covers the cards behind it
+        mSv.requestUpdateStackViewsClip();
     }
 
     @Override
@@ -360,6 +375,8 @@ class StackViewTouchHandler<Model> implements SwipeHelper.Callback {
         StackViewCard tv = (StackViewCard) v;
         // Re-enable touch events from this task view
         tv.setTouchEnabled(true);
+        tv.mSwiping = false;
+        mSv.updateCardLayer(tv);
     }
 
     @Override
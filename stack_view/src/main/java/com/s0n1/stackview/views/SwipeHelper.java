@@ -28,6 +28,7 @@ import android.view.View;
 import android.view.animation.LinearInterpolator;
 
 import com.s0n1.stackview.misc.StackViewConfiguration;
+import com.s0n1.stackview.misc.StackViewTrace;
 
 /**
  * This class facilitates swipe to dismiss. It defines an interface to be implemented by the
@@ -46,6 +47,8 @@ class SwipeHelper {
     private static final int MAX_DISMISS_VELOCITY = 2000; // dp/sec
     private static final int SNAP_ANIM_LEN = 250; // ms
 
+    private static final String DismissTraceSection = "SwipeHelper.dismissChild";
+
     // where fade starts
     private static final float ALPHA_FADE_END = 0.65f; // fraction of thumbnail width
 
@@ -185,12 +188,14 @@ class SwipeHelper {
             duration = DEFAULT_ESCAPE_ANIMATION_DURATION;
         }
 
+        final int traceCookie = System.identityHashCode(view);
         ValueAnimator anim = createTranslationAnimation(view, newPos);
         anim.setInterpolator(sLinearInterpolator);
         anim.setDuration(duration);
         anim.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
+                StackViewTrace.endAsyncSection(DismissTraceSection, traceCookie);
                 mCallback.onChildDismissed(view);
                 if (canAnimViewBeDismissed) {
                     view.setAlpha(1.f);
@@ -203,8 +208,10 @@ class SwipeHelper {
                 if (canAnimViewBeDismissed) {
                     view.setAlpha(getAlphaForOffset(view));
                 }
+                mCallback.onSwipeChanged(view, view.getTranslationX());
             }
         });
+        StackViewTrace.beginAsyncSection(DismissTraceSection, traceCookie);
         anim.start();
     }
 